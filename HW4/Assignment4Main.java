@@ -1,32 +1,185 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+
+// Alert levels with everything the adapters need precomputed
+enum AlertLevel {
+    INFO(0, false),
+    WARNING(40, false),
+    CRITICAL(100, true);
+
+    private static final Map<String, AlertLevel> BY_NAME = new HashMap<>();
+    static {
+        for (AlertLevel level : values()) {
+            BY_NAME.put(level.name(), level);
+        }
+    }
+
+    private final int severityCode;
+    private final boolean urgent;
+    private final String prefix;
+
+    AlertLevel(int severityCode, boolean urgent) {
+        this.severityCode = severityCode;
+        this.urgent = urgent;
+        this.prefix = "[" + name() + "] ";
+    }
+
+    // Case-insensitive; any label that is not a known level is treated as INFO,
+    // the legacy logger's old fallback (code 0, not urgent). Every String
+    // entry point goes through here, so wrappers and adapters agree.
+    static AlertLevel parse(String name) {
+        AlertLevel level = BY_NAME.get(name);
+        if (level == null) level = BY_NAME.get(name.toUpperCase(Locale.ROOT));
+        return level != null ? level : INFO;
+    }
+
+    int severityCode() {
+        return severityCode;
+    }
+
+    boolean isUrgent() {
+        return urgent;
+    }
+
+    String prefix() {
+        return prefix;
+    }
+}
 
 // Unified alert interface (Adapter target)
 interface AlertService {
-    void sendAlert(String level, String text);
+    void sendAlert(AlertLevel level, String text);
+
+    default void sendAlert(String level, String text) {
+        sendAlert(AlertLevel.parse(level), text);
+    }
+}
+
+// The services print each record with a single write to System.out, so records
+// sent from different threads (e.g. AlertDispatcher lanes) never interleave line
+// by line. A record is formatted and UTF-8 encoded into per-thread buffers that
+// are reused from call to call, so printing it allocates nothing.
+final class ConsoleRecords {
+    static final String NL = System.lineSeparator();
+    static final String SEPARATOR = "---------------------------------" + NL;
+    private static final int MAX_RETAINED_CHARS = 64 * 1024; // larger buffers are not kept
+
+    private static final ThreadLocal<ConsoleRecords> LOCAL = ThreadLocal.withInitial(ConsoleRecords::new);
+
+    private final StringBuilder record = new StringBuilder(256);
+    private final CharsetEncoder utf8 = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private char[] chars = new char[256];
+    private CharBuffer charView = CharBuffer.wrap(chars);
+    private ByteBuffer bytes = ByteBuffer.allocate(256 * 3);
+
+    private ConsoleRecords() {
+    }
+
+    // This thread's record buffer, emptied; append the record and call print()
+    static StringBuilder start() {
+        StringBuilder record = LOCAL.get().record;
+        record.setLength(0);
+        return record;
+    }
+
+    static void print() {
+        LOCAL.get().write();
+    }
+
+    private void write() {
+        int length = record.length();
+        if (chars.length < length) {
+            chars = new char[length];
+            charView = CharBuffer.wrap(chars);
+            bytes = ByteBuffer.allocate((int) (length * utf8.maxBytesPerChar()));
+        }
+        record.getChars(0, length, chars, 0);
+        charView.clear().limit(length);
+        bytes.clear();
+        utf8.reset();
+        utf8.encode(charView, bytes, true);
+        utf8.flush(bytes);
+        System.out.write(bytes.array(), 0, bytes.position());
+        if (length > MAX_RETAINED_CHARS) {
+            LOCAL.remove(); // one huge alert should not pin its buffers to the thread
+        }
+    }
 }
 
 // External service 1 — Chat system
 class DiscordClient {
     public void sendMessage(String channel, String message) {
-        System.out.println("DISCORD API: Sending to channel '" + channel + "'");
-        System.out.println("Body: " + message);
-        System.out.println("---------------------------------");
+        sendMessage(channel, (CharSequence) message);
+    }
+
+    // message is only read during the call, so callers may pass a reused buffer
+    public void sendMessage(String channel, CharSequence message) {
+        ConsoleRecords.start()
+                .append("DISCORD API: Sending to channel '").append(channel).append('\'').append(ConsoleRecords.NL)
+                .append("Body: ").append(message).append(ConsoleRecords.NL)
+                .append(ConsoleRecords.SEPARATOR);
+        ConsoleRecords.print();
     }
 }
 
 // External service 2 — Old alert logger
 class LegacyAlertLogger {
     public void recordIssue(int severityCode, String details, boolean urgent) {
-        System.out.println("LEGACY LOGGER: Issue Code " + severityCode);
-        System.out.println("Details: " + details);
-        System.out.println("Requires immediate response: " + urgent);
-        System.out.println("---------------------------------");
+        ConsoleRecords.start()
+                .append("LEGACY LOGGER: Issue Code ").append(severityCode).append(ConsoleRecords.NL)
+                .append("Details: ").append(details).append(ConsoleRecords.NL)
+                .append("Requires immediate response: ").append(urgent).append(ConsoleRecords.NL)
+                .append(ConsoleRecords.SEPARATOR);
+        ConsoleRecords.print();
     }
 }
 
 // Adapter for DiscordClient
 class DiscordAlertAdapter implements AlertService {
+    private static final int MAX_RETAINED_CHARS = 64 * 1024;
+    // The message is formatted into this thread's builder and handed to the
+    // client as a CharSequence, so no String is built per alert
+    private static final ThreadLocal<StringBuilder> MESSAGE = ThreadLocal.withInitial(() -> new StringBuilder(128));
+
     private DiscordClient discord;
     private String channel;
 
@@ -35,9 +188,14 @@ class DiscordAlertAdapter implements AlertService {
         this.channel = channel;
     }
 
-    public void sendAlert(String level, String text) {
-        String formattedMsg = "[" + level.toUpperCase() + "] " + text;
-        discord.sendMessage(channel, formattedMsg);
+    public void sendAlert(AlertLevel level, String text) {
+        StringBuilder message = MESSAGE.get();
+        message.setLength(0);
+        message.append(level.prefix()).append(text);
+        discord.sendMessage(channel, message);
+        if (message.capacity() > MAX_RETAINED_CHARS) {
+            MESSAGE.remove();
+        }
     }
 }
 
@@ -49,18 +207,467 @@ class LegacyAlertAdapter implements AlertService {
         this.legacy = legacy;
     }
 
-    public void sendAlert(String level, String text) {
-        int code = 0;
-        boolean urgent = false;
+    public void sendAlert(AlertLevel level, String text) {
+        legacy.recordIssue(level.severityCode(), text, level.isUrgent());
+    }
+}
 
-        if ("CRITICAL".equals(level)) {
-            code = 100;
-            urgent = true;
-        } else if ("WARNING".equals(level)) {
-            code = 40;
+// Classic token bucket: burst tokens, refilled continuously at ratePerSecond
+class TokenBucket {
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long lastNanos = System.nanoTime();
+
+    TokenBucket(double ratePerSecond, double burst) {
+        this.capacity = burst;
+        this.tokensPerNano = ratePerSecond / 1e9;
+        this.tokens = burst;
+    }
+
+    synchronized boolean tryAcquire() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastNanos) * tokensPerNano);
+        lastNanos = now;
+        if (tokens < 1) return false;
+        tokens -= 1;
+        return true;
+    }
+}
+
+// Decorator in front of an AlertService: identical (level, text) alerts are
+// merged over a sliding window — an alert is a repeat if the same alert was
+// seen less than the window ago, and every repeat slides the window forward,
+// so a burst goes out once however it lines up with the clock. The first alert
+// goes out, repeats are counted and reported with the next occurrence after
+// the burst has been quiet for a whole window. Windows that close
+// without a repeat are dropped and their count is sent as a summary, on the
+// next sendAlert() or by the sweepEvery() timer (or on flush()). Levels can
+// also be rate-limited with a token bucket: alerts and summaries both need a
+// token, and those that get none are dropped and counted. CRITICAL bypasses both.
+class ThrottledAlertService implements AlertService {
+    private static class Window {
+        final AlertLevel level;
+        final String text;
+        long lastNanos; // latest occurrence; the window closes windowNanos after it
+        int suppressed;
+
+        Window(AlertLevel level, String text, long lastNanos) {
+            this.level = level;
+            this.text = text;
+            this.lastNanos = lastNanos;
         }
+    }
 
-        legacy.recordIssue(code, text, urgent);
+    private final AlertService delegate;
+    private final long windowNanos;
+    // Access order: get() moves a repeated alert's window to the tail, so windows
+    // stay sorted by latest occurrence and closed ones are always at the head
+    private final LinkedHashMap<String, Window> windows = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<AlertLevel, TokenBucket> limits = new ConcurrentHashMap<>();
+    private final AtomicLong forwarded = new AtomicLong();
+    private final AtomicLong deduplicated = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+    private final AtomicLong summariesDropped = new AtomicLong();
+    private ScheduledExecutorService sweeper;
+
+    public ThrottledAlertService(AlertService delegate, long windowMillis) {
+        this.delegate = delegate;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+    }
+
+    public ThrottledAlertService limit(AlertLevel level, double perSecond, int burst) {
+        limits.put(level, new TokenBucket(perSecond, burst));
+        return this;
+    }
+
+    // Also sweep closed windows on a daemon timer, so a storm that simply
+    // stops still gets its summary
+    public synchronized ThrottledAlertService sweepEvery(long millis) {
+        if (sweeper == null) {
+            sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "alert-throttle-sweeper");
+                t.setDaemon(true);
+                return t;
+            });
+            sweeper.scheduleAtFixedRate(this::expireWindows, millis, millis, TimeUnit.MILLISECONDS);
+        }
+        return this;
+    }
+
+    public synchronized void shutdown() {
+        if (sweeper != null) {
+            sweeper.shutdown();
+            sweeper = null;
+        }
+    }
+
+    public void sendAlert(AlertLevel level, String text) {
+        if (level == AlertLevel.CRITICAL) {
+            forward(level, text);
+            return;
+        }
+        String key = level.name() + '\u0000' + text;
+        int previouslySuppressed;
+        Window opened;
+        List<Window> summaries;
+        synchronized (windows) {
+            long now = System.nanoTime();
+            Window w = windows.get(key);
+            if (w != null && now - w.lastNanos < windowNanos) {
+                w.lastNanos = now;
+                w.suppressed++;
+                deduplicated.incrementAndGet();
+                return;
+            }
+            // A closed window of this same alert is reported together with it
+            if (w != null) windows.remove(key);
+            previouslySuppressed = w == null ? 0 : w.suppressed;
+            opened = new Window(level, text, now);
+            windows.put(key, opened);
+            summaries = expired(now);
+        }
+        emit(summaries);
+        if (!acquire(level)) {
+            rateLimited.incrementAndGet();
+            if (previouslySuppressed > 0) summariesDropped.incrementAndGet();
+            // Nothing went out, so repeats must not be merged into this alert;
+            // a window that already caught repeats stays and is summarised later
+            synchronized (windows) {
+                if (windows.get(key) == opened && opened.suppressed == 0) {
+                    windows.remove(key);
+                }
+            }
+            return;
+        }
+        forward(level, previouslySuppressed > 0 ? withCount(text, previouslySuppressed) : text);
+    }
+
+    // Drop windows that have closed and report their suppressed counts
+    public void expireWindows() {
+        List<Window> summaries;
+        synchronized (windows) {
+            summaries = expired(System.nanoTime());
+        }
+        emit(summaries);
+    }
+
+    // Report duplicates still held in open windows and reset them
+    public void flush() {
+        List<Window> summaries = new ArrayList<>();
+        synchronized (windows) {
+            for (Window w : windows.values()) {
+                if (w.suppressed > 0) {
+                    summaries.add(w);
+                }
+            }
+            windows.clear();
+        }
+        emit(summaries);
+    }
+
+    // Caller holds the windows lock; amortised O(1) since only the head can be expired
+    private List<Window> expired(long now) {
+        List<Window> summaries = Collections.emptyList();
+        Iterator<Window> it = windows.values().iterator();
+        while (it.hasNext()) {
+            Window w = it.next();
+            if (now - w.lastNanos < windowNanos) break;
+            it.remove();
+            if (w.suppressed > 0) {
+                if (summaries.isEmpty()) summaries = new ArrayList<>();
+                summaries.add(w);
+            }
+        }
+        return summaries;
+    }
+
+    // Summaries are alerts too and pay for a token like any other
+    private void emit(List<Window> summaries) {
+        for (Window w : summaries) {
+            if (acquire(w.level)) {
+                forward(w.level, withCount(w.text, w.suppressed));
+            } else {
+                summariesDropped.incrementAndGet();
+            }
+        }
+    }
+
+    private boolean acquire(AlertLevel level) {
+        TokenBucket bucket = limits.get(level);
+        return bucket == null || bucket.tryAcquire();
+    }
+
+    private static String withCount(String text, int suppressed) {
+        return text + " (+" + suppressed + " duplicates suppressed)";
+    }
+
+    private void forward(AlertLevel level, String text) {
+        forwarded.incrementAndGet();
+        delegate.sendAlert(level, text);
+    }
+
+    public String metrics() {
+        return "forwarded=" + forwarded.get() + ", deduplicated=" + deduplicated.get()
+                + ", rateLimited=" + rateLimited.get() + ", summariesDropped=" + summariesDropped.get();
+    }
+}
+
+// Pending alert; count > 1 when duplicates were collapsed into it
+class QueuedAlert {
+    final AlertLevel level;
+    final String text;
+    final long enqueuedNanos = System.nanoTime();
+    int count = 1;
+
+    QueuedAlert(AlertLevel level, String text) {
+        this.level = level;
+        this.text = text;
+    }
+
+    String key() {
+        return level.name() + '\u0000' + text;
+    }
+}
+
+// What a full lane does with a new alert
+enum BackpressurePolicy {
+    BLOCK,               // caller waits for space
+    DROP_OLDEST,         // evict the oldest pending alert
+    COLLAPSE_DUPLICATES  // merge into an identical pending alert, otherwise drop the new one
+}
+
+// Asynchronous fan-out over AlertService adapters. Each adapter gets its own
+// bounded queue and worker thread, so a slow backend only delays itself.
+// Workers deliver micro-batches: up to maxBatch alerts or whatever arrived
+// within maxDelay of the first one.
+class AlertDispatcher implements AlertService {
+    private final int capacity;
+    private final int maxBatch;
+    private final long maxDelayNanos;
+    private final BackpressurePolicy policy;
+    // Registration may race with sendAlert on other threads
+    private final List<Lane> lanes = new CopyOnWriteArrayList<>();
+
+    public AlertDispatcher(int capacity, int maxBatch, long maxDelayMillis, BackpressurePolicy policy) {
+        this.capacity = capacity;
+        this.maxBatch = maxBatch;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.policy = policy;
+    }
+
+    public void register(String name, AlertService service) {
+        Lane lane = new Lane(name, service);
+        lanes.add(lane);
+        lane.worker.start();
+    }
+
+    // Only blocks under BackpressurePolicy.BLOCK with a full queue. Every lane
+    // with room gets the alert first; only then does the caller wait, one full
+    // lane at a time, so a stalled backend never delays the healthy ones.
+    public void sendAlert(AlertLevel level, String text) {
+        List<Lane> full = null;
+        for (Lane lane : lanes) {
+            if (!lane.enqueue(level, text, false)) {
+                if (full == null) full = new ArrayList<>();
+                full.add(lane);
+            }
+        }
+        if (full != null) {
+            for (Lane lane : full) {
+                lane.enqueue(level, text, true);
+            }
+        }
+    }
+
+    // Stops accepting alerts, delivers what is queued and waits for the workers
+    public void shutdown() throws InterruptedException {
+        for (Lane lane : lanes) lane.close();
+        for (Lane lane : lanes) lane.worker.join();
+    }
+
+    public void printMetrics() {
+        for (Lane lane : lanes) {
+            System.out.println(lane.metrics());
+        }
+    }
+
+    private class Lane {
+        private final String name;
+        private final AlertService service;
+        private final Thread worker;
+        private final ArrayDeque<QueuedAlert> queue = new ArrayDeque<>();
+        private final Map<String, QueuedAlert> pending = new HashMap<>(); // for COLLAPSE_DUPLICATES
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notEmpty = lock.newCondition();
+        private final Condition notFull = lock.newCondition();
+        private boolean closed;
+
+        // Metrics; latency is enqueue -> delivered, over the last LATENCY_SAMPLES alerts
+        private static final int LATENCY_SAMPLES = 4096;
+        private final long[] latencies = new long[LATENCY_SAMPLES];
+        private long delivered;
+        private long batches;
+        private long dropped;
+        private long collapsed;
+        private long failed;
+        private RuntimeException lastFailure;
+        private final long startNanos = System.nanoTime();
+
+        Lane(String name, AlertService service) {
+            this.name = name;
+            this.service = service;
+            this.worker = new Thread(this::run, "alert-" + name);
+            this.worker.setDaemon(true);
+        }
+
+        // false only under BLOCK with a full queue and mayBlock unset: nothing was enqueued
+        boolean enqueue(AlertLevel level, String text, boolean mayBlock) {
+            QueuedAlert alert = new QueuedAlert(level, text);
+            lock.lock();
+            try {
+                if (closed) {
+                    dropped++;
+                    return true;
+                }
+                if (policy == BackpressurePolicy.COLLAPSE_DUPLICATES) {
+                    QueuedAlert same = pending.get(alert.key());
+                    if (same != null) {
+                        same.count++;
+                        collapsed++;
+                        return true;
+                    }
+                }
+                if (queue.size() >= capacity) {
+                    switch (policy) {
+                        case BLOCK:
+                            if (!mayBlock) return false;
+                            while (queue.size() >= capacity && !closed) {
+                                notFull.awaitUninterruptibly();
+                            }
+                            if (closed) {
+                                dropped++;
+                                return true;
+                            }
+                            break;
+                        case DROP_OLDEST:
+                            queue.pollFirst();
+                            dropped++;
+                            break;
+                        case COLLAPSE_DUPLICATES:
+                            dropped++;
+                            return true;
+                    }
+                }
+                queue.addLast(alert);
+                if (policy == BackpressurePolicy.COLLAPSE_DUPLICATES) {
+                    pending.put(alert.key(), alert);
+                }
+                notEmpty.signal();
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private List<QueuedAlert> nextBatch() throws InterruptedException {
+            lock.lock();
+            try {
+                while (queue.isEmpty()) {
+                    if (closed) return Collections.emptyList();
+                    notEmpty.await();
+                }
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (queue.size() < maxBatch && !closed) {
+                    long left = deadline - System.nanoTime();
+                    if (left <= 0) break;
+                    notEmpty.awaitNanos(left);
+                }
+                List<QueuedAlert> batch = new ArrayList<>(Math.min(maxBatch, queue.size()));
+                while (batch.size() < maxBatch && !queue.isEmpty()) {
+                    QueuedAlert a = queue.pollFirst();
+                    pending.remove(a.key(), a);
+                    batch.add(a);
+                }
+                notFull.signalAll();
+                return batch;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void run() {
+            try {
+                while (true) {
+                    List<QueuedAlert> batch = nextBatch();
+                    if (batch.isEmpty()) return;
+                    // A failing backend must not kill the worker: the queue would never drain again
+                    // and BLOCK producers would wait forever
+                    boolean[] sent = new boolean[batch.size()];
+                    RuntimeException failure = null;
+                    for (int i = 0; i < batch.size(); i++) {
+                        QueuedAlert a = batch.get(i);
+                        try {
+                            service.sendAlert(a.level, a.count > 1 ? a.text + " (x" + a.count + ")" : a.text);
+                            sent[i] = true;
+                        } catch (RuntimeException e) {
+                            failure = e;
+                        }
+                    }
+                    long now = System.nanoTime();
+                    lock.lock();
+                    try {
+                        for (int i = 0; i < batch.size(); i++) {
+                            if (sent[i]) {
+                                latencies[(int) (delivered++ % LATENCY_SAMPLES)] = now - batch.get(i).enqueuedNanos;
+                            } else {
+                                failed++;
+                            }
+                        }
+                        if (failure != null) lastFailure = failure;
+                        batches++;
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void close() {
+            lock.lock();
+            try {
+                closed = true;
+                notEmpty.signalAll();
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        String metrics() {
+            lock.lock();
+            try {
+                int n = (int) Math.min(delivered, LATENCY_SAMPLES);
+                long[] sorted = Arrays.copyOf(latencies, n);
+                Arrays.sort(sorted);
+                double seconds = (System.nanoTime() - startNanos) / 1e9;
+                return String.format(Locale.ROOT,
+                        "[%s] delivered=%d in %d batches (%.0f/s), dropped=%d, collapsed=%d, failed=%d%s, "
+                                + "latency p50=%.2fms p95=%.2fms p99=%.2fms",
+                        name, delivered, batches, delivered / seconds, dropped, collapsed, failed,
+                        lastFailure == null ? "" : " (last: " + lastFailure + ")",
+                        percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99));
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) return 0;
+            return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)] / 1e6;
+        }
     }
 }
 
@@ -73,53 +680,179 @@ interface ReportOutput {
     String getOutput();
 }
 
-// HTML Implementation
-class HtmlOutput implements ReportOutput {
-    private StringBuilder builder = new StringBuilder();
+// Bounded buffered writers for streaming reports straight to a stream or channel
+class ReportSinks {
+    static final int BUFFER_SIZE = 8 * 1024;
 
-    public void open() {
-        builder.append("<html><body>\n");
+    static Writer writer(OutputStream out) {
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
     }
 
-    public String createTitle(String title) {
-        builder.append("<h2>").append(title).append("</h2>\n");
-        return title;
+    static Writer writer(WritableByteChannel channel) {
+        return new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), BUFFER_SIZE);
     }
+}
 
-    public String createParagraph(String content) {
-        builder.append("<p>").append(content).append("</p>\n");
-        return content;
+// Stateless format: writes markup into whatever Appendable it is given,
+// so one instance can be shared by every report and every thread
+interface ReportRenderer {
+    void open(Appendable out) throws IOException;
+    void title(Appendable out, String title) throws IOException;
+    void paragraph(Appendable out, String content) throws IOException;
+    void close(Appendable out) throws IOException;
+}
+
+class HtmlRenderer implements ReportRenderer {
+    static final HtmlRenderer INSTANCE = new HtmlRenderer();
+
+    public void open(Appendable out) throws IOException {
+        out.append("<html><body>\n");
     }
 
-    public void close() {
-        builder.append("</body></html>\n");
+    public void title(Appendable out, String title) throws IOException {
+        out.append("<h2>").append(title).append("</h2>\n");
     }
 
-    public String getOutput() {
-        return builder.toString();
+    public void paragraph(Appendable out, String content) throws IOException {
+        out.append("<p>").append(content).append("</p>\n");
+    }
+
+    public void close(Appendable out) throws IOException {
+        out.append("</body></html>\n");
     }
 }
 
-// Markdown Implementation
-class MarkdownOutput implements ReportOutput {
-    private StringBuilder builder = new StringBuilder();
+class MarkdownRenderer implements ReportRenderer {
+    static final MarkdownRenderer INSTANCE = new MarkdownRenderer();
 
-    public void open() {}
+    public void open(Appendable out) {}
+
+    public void title(Appendable out, String title) throws IOException {
+        out.append("## ").append(title).append("\n");
+    }
+
+    public void paragraph(Appendable out, String content) throws IOException {
+        out.append(content).append("\n\n");
+    }
+
+    public void close(Appendable out) {}
+}
+
+// Pool of pre-sized StringBuilders reused between renders; oversized buffers
+// are dropped instead of returned so one huge report doesn't pin memory
+class RenderBufferPool {
+    private static final int INITIAL_CAPACITY = 16 * 1024;
+    private static final int MAX_RETAINED_CAPACITY = 1024 * 1024;
+    private static final int MAX_POOLED = 64;
+
+    private static final ConcurrentLinkedQueue<StringBuilder> pool = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger pooled = new AtomicInteger();
+
+    static StringBuilder acquire() {
+        StringBuilder sb = pool.poll();
+        if (sb == null) {
+            return new StringBuilder(INITIAL_CAPACITY);
+        }
+        pooled.decrementAndGet();
+        return sb;
+    }
+
+    static void release(StringBuilder sb) {
+        if (sb.capacity() > MAX_RETAINED_CAPACITY) return;
+        if (pooled.incrementAndGet() > MAX_POOLED) {
+            pooled.decrementAndGet();
+            return;
+        }
+        sb.setLength(0);
+        pool.offer(sb);
+    }
+}
+
+// Stateful ReportOutput over a stateless renderer: in memory by default, or
+// streaming to a Writer. open() starts a fresh document, so an instance can be
+// reused for several reports. In streaming mode text is flushed on close() and
+// getOutput() returns "".
+abstract class TextReportOutput implements ReportOutput {
+    private final ReportRenderer renderer;
+    private final StringBuilder buffer;
+    private final Writer writer;
+
+    protected TextReportOutput(ReportRenderer renderer) {
+        this.renderer = renderer;
+        this.buffer = new StringBuilder();
+        this.writer = null;
+    }
+
+    protected TextReportOutput(ReportRenderer renderer, Writer writer) {
+        this.renderer = renderer;
+        this.buffer = null;
+        this.writer = writer;
+    }
+
+    private Appendable sink() {
+        return writer != null ? writer : buffer;
+    }
+
+    public void open() {
+        if (buffer != null) buffer.setLength(0);
+        try {
+            renderer.open(sink());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
     public String createTitle(String title) {
-        builder.append("## ").append(title).append("\n");
+        try {
+            renderer.title(sink(), title);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
         return title;
     }
 
     public String createParagraph(String content) {
-        builder.append(content).append("\n\n");
+        try {
+            renderer.paragraph(sink(), content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
         return content;
     }
 
-    public void close() {}
+    public void close() {
+        try {
+            renderer.close(sink());
+            if (writer != null) writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
     public String getOutput() {
-        return builder.toString();
+        return buffer != null ? buffer.toString() : "";
+    }
+}
+
+// HTML Implementation
+class HtmlOutput extends TextReportOutput {
+    public HtmlOutput() {
+        super(HtmlRenderer.INSTANCE);
+    }
+
+    public HtmlOutput(Writer writer) {
+        super(HtmlRenderer.INSTANCE, writer);
+    }
+}
+
+// Markdown Implementation
+class MarkdownOutput extends TextReportOutput {
+    public MarkdownOutput() {
+        super(MarkdownRenderer.INSTANCE);
+    }
+
+    public MarkdownOutput(Writer writer) {
+        super(MarkdownRenderer.INSTANCE, writer);
     }
 }
 
@@ -127,6 +860,21 @@ class MarkdownOutput implements ReportOutput {
 abstract class DocumentReport {
     protected ReportOutput output;
 
+    // Last incremental render for one format: markup per section (title, body
+    // paragraphs, footer), the joined output and the report version it reflects
+    private static class RenderedReport {
+        String[] fragments;
+        String output;
+        long version;
+    }
+
+    private final Map<ReportRenderer, RenderedReport> rendered = new ConcurrentHashMap<>();
+    // Change tracking, fed by subclasses through bodyChanged()/structureChanged()
+    private long version;
+    private long structureVersion;
+    private long[] bodyStamps = new long[0];
+    private int lastRerendered;
+
     public DocumentReport(ReportOutput output) {
         this.output = output;
     }
@@ -142,25 +890,217 @@ abstract class DocumentReport {
         return output.getOutput();
     }
 
+    // Thread-safe rendering: touches no shared mutable state, uses a pooled buffer
+    public String render(ReportRenderer renderer) {
+        StringBuilder sb = RenderBufferPool.acquire();
+        try {
+            renderer.open(sb);
+            renderer.title(sb, getTitle());
+            for (String part : getBody()) {
+                renderer.paragraph(sb, part);
+            }
+            renderer.paragraph(sb, getFooter());
+            renderer.close(sb);
+            return sb.toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // StringBuilder never throws
+        } finally {
+            RenderBufferPool.release(sb);
+        }
+    }
+
+    // Body paragraph `index` changed its text
+    protected synchronized void bodyChanged(int index) {
+        if (index >= bodyStamps.length) {
+            bodyStamps = Arrays.copyOf(bodyStamps, Math.max(index + 1, bodyStamps.length * 2));
+        }
+        bodyStamps[index] = ++version;
+    }
+
+    // Paragraphs were added or removed, or the title or footer changed
+    protected synchronized void structureChanged() {
+        structureVersion = ++version;
+    }
+
+    // Text of one body paragraph; override when the body supports random access
+    protected String getBodyParagraph(int index) {
+        int i = 0;
+        for (String part : getBody()) {
+            if (i++ == index) return part;
+        }
+        throw new IndexOutOfBoundsException("No body paragraph " + index);
+    }
+
+    // Re-renders only the sections reported changed through bodyChanged() or
+    // structureChanged() since the last call with this renderer. Unchanged
+    // reports return the cached output without touching getBody(). Subclasses
+    // with mutable data must report every change, or this serves stale output.
+    public synchronized String renderIncremental(ReportRenderer renderer) {
+        RenderedReport cached = rendered.computeIfAbsent(renderer, r -> new RenderedReport());
+        if (cached.output != null && cached.version == version) {
+            lastRerendered = 0;
+            return cached.output;
+        }
+        try {
+            int rerendered = 0;
+            if (cached.output == null || structureVersion > cached.version) {
+                List<String> sections = new ArrayList<>();
+                sections.add(fragment(renderer, getTitle(), true));
+                for (String part : getBody()) {
+                    sections.add(fragment(renderer, part, false));
+                }
+                sections.add(fragment(renderer, getFooter(), false));
+                cached.fragments = sections.toArray(new String[0]);
+                rerendered = cached.fragments.length;
+            } else {
+                int paragraphs = Math.min(bodyStamps.length, cached.fragments.length - 2);
+                for (int i = 0; i < paragraphs; i++) {
+                    if (bodyStamps[i] > cached.version) {
+                        cached.fragments[i + 1] = fragment(renderer, getBodyParagraph(i), false);
+                        rerendered++;
+                    }
+                }
+            }
+            StringBuilder sb = RenderBufferPool.acquire();
+            try {
+                renderer.open(sb);
+                for (String f : cached.fragments) sb.append(f);
+                renderer.close(sb);
+                cached.output = sb.toString();
+            } finally {
+                RenderBufferPool.release(sb);
+            }
+            cached.version = version;
+            lastRerendered = rerendered;
+            return cached.output;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // StringBuilder never throws
+        }
+    }
+
+    private static String fragment(ReportRenderer renderer, String source, boolean title) throws IOException {
+        StringBuilder markup = new StringBuilder(source.length() + 16);
+        if (title) {
+            renderer.title(markup, source);
+        } else {
+            renderer.paragraph(markup, source);
+        }
+        return markup.toString();
+    }
+
+    // Number of sections re-rendered by the last renderIncremental call
+    public int getLastRerendered() {
+        return lastRerendered;
+    }
+
+    public String renderParallel(ReportRenderer renderer) {
+        return renderParallel(renderer, ForkJoinPool.commonPool(), 1024);
+    }
+
+    // Renders body chunks with fork/join and joins them in original order;
+    // output is identical to render(). The body is materialised into a list first.
+    public String renderParallel(ReportRenderer renderer, ForkJoinPool pool, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        List<String> parts = new ArrayList<>();
+        for (String part : getBody()) {
+            parts.add(part);
+        }
+        parts.add(getFooter());
+        String[] chunks = new String[(parts.size() + chunkSize - 1) / chunkSize];
+        pool.invoke(new RenderChunks(renderer, parts, chunks, chunkSize, 0, chunks.length));
+
+        StringBuilder sb = new StringBuilder();
+        try {
+            renderer.open(sb);
+            renderer.title(sb, getTitle());
+            int bodyLength = 0;
+            for (String chunk : chunks) bodyLength += chunk.length();
+            sb.ensureCapacity(sb.length() + bodyLength + 64);
+            for (String chunk : chunks) sb.append(chunk);
+            renderer.close(sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    // Splits the chunk range in half until one chunk is left, then renders it
+    private static class RenderChunks extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final ReportRenderer renderer;
+        private final List<String> parts;
+        private final String[] chunks;
+        private final int chunkSize;
+        private final int from;
+        private final int to;
+
+        RenderChunks(ReportRenderer renderer, List<String> parts, String[] chunks, int chunkSize, int from, int to) {
+            this.renderer = renderer;
+            this.parts = parts;
+            this.chunks = chunks;
+            this.chunkSize = chunkSize;
+            this.from = from;
+            this.to = to;
+        }
+
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new RenderChunks(renderer, parts, chunks, chunkSize, from, mid),
+                        new RenderChunks(renderer, parts, chunks, chunkSize, mid, to));
+                return;
+            }
+            StringBuilder sb = RenderBufferPool.acquire();
+            try {
+                int end = Math.min(parts.size(), (from + 1) * chunkSize);
+                for (int i = from * chunkSize; i < end; i++) {
+                    renderer.paragraph(sb, parts.get(i));
+                }
+                chunks[from] = sb.toString();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                RenderBufferPool.release(sb);
+            }
+        }
+    }
+
     protected abstract String getTitle();
-    protected abstract List<String> getBody();
+    // Any Iterable works, so large reports can generate paragraphs lazily
+    protected abstract Iterable<String> getBody();
     protected abstract String getFooter();
 }
 
 // Concrete Report 1
 class DailyRevenueReport extends DocumentReport {
+    private String revenue = "$17,500";
+    private int newClients = 9;
+
     public DailyRevenueReport(ReportOutput output) {
         super(output);
     }
 
+    public void setRevenue(String revenue) {
+        this.revenue = revenue;
+        bodyChanged(0);
+    }
+
+    public void setNewClients(int newClients) {
+        this.newClients = newClients;
+        bodyChanged(1);
+    }
+
     protected String getTitle() {
         return "Daily Revenue Summary";
     }
 
     protected List<String> getBody() {
         List<String> info = new ArrayList<>();
-        info.add("Revenue Collected: $17,500");
-        info.add("New Clients: 9");
+        info.add("Revenue Collected: " + revenue);
+        info.add("New Clients: " + newClients);
         return info;
     }
 
@@ -171,19 +1111,42 @@ class DailyRevenueReport extends DocumentReport {
 
 // Concrete Report 2
 class YearlyPerformanceReport extends DocumentReport {
+    private final Map<String, String> kpis = new LinkedHashMap<>();
+    // Position of each KPI in the body, for bodyChanged() and getBodyParagraph()
+    private final Map<String, Integer> positions = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
     public YearlyPerformanceReport(ReportOutput output) {
         super(output);
+        setKpi("KPI 1", "Achieved");
+        setKpi("KPI 2", "Pending");
+        setKpi("KPI 3", "Failed");
+    }
+
+    public synchronized void setKpi(String kpi, String status) {
+        if (kpis.put(kpi, status) == null) {
+            positions.put(kpi, names.size());
+            names.add(kpi);
+            structureChanged();
+        } else {
+            bodyChanged(positions.get(kpi));
+        }
+    }
+
+    protected synchronized String getBodyParagraph(int index) {
+        String kpi = names.get(index);
+        return kpi + ": " + kpis.get(kpi);
     }
 
     protected String getTitle() {
         return "Yearly Performance Report";
     }
 
-    protected List<String> getBody() {
+    protected synchronized List<String> getBody() {
         List<String> body = new ArrayList<>();
-        body.add("KPI 1: Achieved");
-        body.add("KPI 2: Pending");
-        body.add("KPI 3: Failed");
+        for (Map.Entry<String, String> kpi : kpis.entrySet()) {
+            body.add(kpi.getKey() + ": " + kpi.getValue());
+        }
         return body;
     }
 
@@ -192,10 +1155,33 @@ class YearlyPerformanceReport extends DocumentReport {
     }
 }
 
+// Concrete Report 3 — body is generated lazily, so it can be arbitrarily long
+class TransactionLogReport extends DocumentReport {
+    private final int transactions;
+
+    public TransactionLogReport(ReportOutput output, int transactions) {
+        super(output);
+        this.transactions = transactions;
+    }
+
+    protected String getTitle() {
+        return "Transaction Log";
+    }
+
+    protected Iterable<String> getBody() {
+        return () -> IntStream.rangeClosed(1, transactions)
+                .mapToObj(i -> "Transaction #" + i + ": settled")
+                .iterator();
+    }
+
+    protected String getFooter() {
+        return "End of log — " + transactions + " transactions";
+    }
+}
+
 // Main demo
 public class Assignment4Main {
-    public static void main(String[] args) {
-
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
         System.out.println("======= ADAPTER PATTERN DEMO =======");
         System.out.println("Demonstrating communication between incompatible alert systems.\n");
 
@@ -219,6 +1205,30 @@ public class Assignment4Main {
             alert.sendAlert("CRITICAL", "Backend API is down!");
         }
 
+        System.out.println("\nSending alerts through the asynchronous dispatcher...");
+        AlertDispatcher dispatcher = new AlertDispatcher(1024, 32, 5, BackpressurePolicy.COLLAPSE_DUPLICATES);
+        dispatcher.register("discord", discordAdapter);
+        dispatcher.register("legacy", legacyAdapter);
+        for (int i = 0; i < 3; i++) {
+            dispatcher.sendAlert("WARNING", "Memory usage exceeded 75%");
+        }
+        dispatcher.sendAlert("CRITICAL", "Backend API is down!");
+        dispatcher.shutdown();
+        dispatcher.printMetrics();
+
+        System.out.println("\nAlert storm through the deduplicating, rate-limited wrapper...");
+        ThrottledAlertService throttled = new ThrottledAlertService(legacyAdapter, 1000)
+                .limit(AlertLevel.WARNING, 10, 10)
+                .limit(AlertLevel.INFO, 1, 1);
+        for (int i = 0; i < 1000; i++) {
+            throttled.sendAlert("WARNING", "Memory usage exceeded 75%");
+        }
+        throttled.sendAlert("CRITICAL", "Backend API is down!");
+        throttled.sendAlert("CRITICAL", "Backend API is down!");
+        throttled.flush();
+        System.out.println("Throttling metrics: " + throttled.metrics());
+        checkRateLimit();
+
         System.out.println("\n======= BRIDGE PATTERN DEMO =======");
         System.out.println("Demonstrating separation of Report abstraction from Output format.\n");
 
@@ -237,6 +1247,102 @@ public class Assignment4Main {
         System.out.println("--- Yearly Performance (HTML) ---");
         System.out.println(yearlyHtml.build());
 
+        System.out.println("--- Transaction Log (Markdown, streamed to stdout) ---");
+        Writer stdout = ReportSinks.writer(System.out);
+        new TransactionLogReport(new MarkdownOutput(stdout), 5).build();
+
+        System.out.println("\n--- Concurrent rendering with shared renderers ---");
+        String expected = yearlyHtml.build();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<String>> renders = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            renders.add(pool.submit(() -> yearlyHtml.render(HtmlRenderer.INSTANCE)));
+        }
+        boolean identical = true;
+        for (Future<String> f : renders) {
+            identical &= expected.equals(f.get());
+        }
+        pool.shutdown();
+        System.out.println("1000 concurrent renders identical to build(): " + identical);
+
+        System.out.println("\n--- Incremental re-rendering with fragment cache ---");
+        YearlyPerformanceReport dashboard = new YearlyPerformanceReport(new HtmlOutput());
+        dashboard.renderIncremental(HtmlRenderer.INSTANCE);
+        System.out.println("first render: " + dashboard.getLastRerendered() + " sections rendered");
+        dashboard.setKpi("KPI 2", "Achieved");
+        System.out.print(dashboard.renderIncremental(HtmlRenderer.INSTANCE));
+        System.out.println("after KPI 2 changed: " + dashboard.getLastRerendered() + " section re-rendered");
+
+        // One KPI changing between renders on a 2000-KPI report
+        YearlyPerformanceReport large = new YearlyPerformanceReport(new HtmlOutput());
+        for (int i = 4; i <= 2000; i++) large.setKpi("KPI " + i, "Pending");
+        large.renderIncremental(HtmlRenderer.INSTANCE);
+        long[] nanos = new long[3];
+        int reps = 2000;
+        for (int round = 0; round < 3; round++) { // last round is measured
+            long t0 = System.nanoTime();
+            for (int i = 0; i < reps; i++) {
+                large.setKpi("KPI 7", i % 2 == 0 ? "Achieved" : "Pending");
+                large.render(HtmlRenderer.INSTANCE);
+            }
+            long t1 = System.nanoTime();
+            for (int i = 0; i < reps; i++) {
+                large.setKpi("KPI 7", i % 2 == 0 ? "Achieved" : "Pending");
+                large.renderIncremental(HtmlRenderer.INSTANCE);
+            }
+            long t2 = System.nanoTime();
+            for (int i = 0; i < reps; i++) {
+                large.renderIncremental(HtmlRenderer.INSTANCE);
+            }
+            long t3 = System.nanoTime();
+            nanos = new long[]{t1 - t0, t2 - t1, t3 - t2};
+        }
+        System.out.printf("2000 KPIs, one changed: render() %.1f us, renderIncremental() %.1f us, unchanged %.2f us%n",
+                nanos[0] / 1e3 / reps, nanos[1] / 1e3 / reps, nanos[2] / 1e3 / reps);
+
+        System.out.println("\n--- Parallel rendering of a large report ---");
+        DocumentReport bigLog = new TransactionLogReport(new HtmlOutput(), 200_000);
+        String sequential = bigLog.render(HtmlRenderer.INSTANCE);
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) bigLog.render(HtmlRenderer.INSTANCE);
+        System.out.printf("sequential: %.1f ms%n", (System.nanoTime() - start) / 5e6);
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            ForkJoinPool fj = new ForkJoinPool(threads);
+            boolean same = sequential.equals(bigLog.renderParallel(HtmlRenderer.INSTANCE, fj, 1024));
+            start = System.nanoTime();
+            for (int i = 0; i < 5; i++) bigLog.renderParallel(HtmlRenderer.INSTANCE, fj, 1024);
+            System.out.printf("parallel, %d thread(s): %.1f ms, identical: %b%n",
+                    threads, (System.nanoTime() - start) / 5e6, same);
+            fj.shutdown();
+        }
+
         System.out.println("Bridge pattern demo complete. No duplication across report types or formats.");
     }
+
+    // 1000 distinct WARNINGs at 10/s (burst 10): whatever reaches the client,
+    // alerts and summaries together, must fit the bucket for the elapsed time
+    private static void checkRateLimit() throws InterruptedException {
+        AtomicLong delivered = new AtomicLong();
+        AlertService counting = (level, text) -> {
+            if (level != AlertLevel.CRITICAL) delivered.incrementAndGet();
+        };
+        long start = System.nanoTime();
+        ThrottledAlertService throttled = new ThrottledAlertService(counting, 50)
+                .limit(AlertLevel.WARNING, 10, 10);
+        for (int i = 0; i < 1000; i++) {
+            throttled.sendAlert(AlertLevel.WARNING, "Disk usage on node-" + i);
+            throttled.sendAlert(AlertLevel.WARNING, "Disk usage on node-" + i);
+        }
+        Thread.sleep(100);
+        throttled.expireWindows();
+        throttled.flush();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long allowed = 10 + (long) Math.ceil(10 * seconds);
+        System.out.println("Rate-limit check: " + delivered.get() + " of 1000 distinct WARNINGs delivered, at most "
+                + allowed + " allowed (" + throttled.metrics() + ")");
+        if (delivered.get() > allowed) {
+            throw new IllegalStateException("Rate limit exceeded: " + delivered.get() + " > " + allowed);
+        }
+    }
 }
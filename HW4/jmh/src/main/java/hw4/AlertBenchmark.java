@@ -0,0 +1,101 @@
+package hw4;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// The original string-based alert formatting versus the AlertLevel path,
+// against clients that only consume the message. The alert text changes on
+// every call, so nothing can be served from a cache of formatted messages.
+// Run with -prof gc for B/op.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class AlertBenchmark {
+    private static final String[] LEVELS = {"WARNING", "CRITICAL", "INFO"};
+    private static final AlertLevel[] ENUM_LEVELS = {AlertLevel.WARNING, AlertLevel.CRITICAL, AlertLevel.INFO};
+    private static final int TEXTS = 64; // power of two
+
+    private DiscordClient discord;
+    private LegacyAlertLogger legacy;
+    private AlertService discordAdapter;
+    private AlertService legacyAdapter;
+    private final String[] texts = new String[TEXTS];
+    private int i;
+    private int t;
+
+    // Index cycles over the three levels without overflowing
+    private int next() {
+        i = i + 1 == 3 ? 0 : i + 1;
+        return i;
+    }
+
+    private String text() {
+        t = (t + 1) & (TEXTS - 1);
+        return texts[t];
+    }
+
+    @Setup
+    public void setUp(Blackhole sink) {
+        for (int k = 0; k < TEXTS; k++) {
+            texts[k] = "Memory usage exceeded " + (50 + k % 50) + "% on node-" + k;
+        }
+        // The String overload delegates here, so both paths reach the same sink
+        discord = new DiscordClient() {
+            public void sendMessage(String channel, CharSequence message) {
+                sink.consume(message);
+            }
+        };
+        legacy = new LegacyAlertLogger() {
+            public void recordIssue(int severityCode, String details, boolean urgent) {
+                sink.consume(severityCode);
+                sink.consume(urgent);
+            }
+        };
+        discordAdapter = new DiscordAlertAdapter(discord, "server-alerts");
+        legacyAdapter = new LegacyAlertAdapter(legacy);
+    }
+
+    @Benchmark
+    public void discordConcat() {
+        String formattedMsg = "[" + LEVELS[next()].toUpperCase() + "] " + text();
+        discord.sendMessage("server-alerts", formattedMsg);
+    }
+
+    @Benchmark
+    public void discordAdapter() {
+        discordAdapter.sendAlert(ENUM_LEVELS[next()], text());
+    }
+
+    @Benchmark
+    public void legacyIfElse() {
+        String level = LEVELS[next()];
+        int code = 0;
+        boolean urgent = false;
+        if ("CRITICAL".equals(level)) {
+            code = 100;
+            urgent = true;
+        } else if ("WARNING".equals(level)) {
+            code = 40;
+        }
+        legacy.recordIssue(code, text(), urgent);
+    }
+
+    @Benchmark
+    public void legacyAdapter() {
+        legacyAdapter.sendAlert(ENUM_LEVELS[next()], text());
+    }
+}
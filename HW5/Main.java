@@ -1,11 +1,54 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.security.spec.AlgorithmParameterSpec;
+import java.time.Clock;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
 
 // ====== Notification component ======
 interface Notification {
     String getContent();
     void send(Recipient recipient);
+
+    // Content for a specific recipient; only personalized notifications differ from getContent()
+    default String getContent(Recipient recipient) {
+        return getContent();
+    }
+
+    // true if getContent(recipient) depends on the recipient
+    default boolean isPersonalized() {
+        return false;
+    }
+
+    // Send content that was already computed (see PreparedNotification)
+    default void send(Recipient recipient, String content) {
+        System.out.println("Sending to " + recipient.getName() + ": " + content);
+    }
 }
 
 // ====== Concrete component ======
@@ -23,7 +66,36 @@ class SimpleNotification implements Notification {
 
     @Override
     public void send(Recipient recipient) {
-        System.out.println("Sending to " + recipient.getName() + ": " + getContent());
+        send(recipient, getContent());
+    }
+}
+
+// ====== Concrete component with per-recipient content ======
+class PersonalizedNotification implements Notification {
+    private final String template; // "{name}" is replaced with the recipient's name
+
+    public PersonalizedNotification(String template) {
+        this.template = template;
+    }
+
+    @Override
+    public String getContent() {
+        return template;
+    }
+
+    @Override
+    public String getContent(Recipient recipient) {
+        return template.replace("{name}", recipient.getName());
+    }
+
+    @Override
+    public boolean isPersonalized() {
+        return true;
+    }
+
+    @Override
+    public void send(Recipient recipient) {
+        send(recipient, getContent(recipient));
     }
 }
 
@@ -35,107 +107,796 @@ abstract class NotificationDecorator implements Notification {
         this.wrapped = wrapped;
     }
 
+    // The decorator's own transformation of the wrapped content
+    protected String transform(String content) {
+        return content;
+    }
+
     @Override
     public String getContent() {
-        return wrapped.getContent();
+        return transform(wrapped.getContent());
+    }
+
+    @Override
+    public String getContent(Recipient recipient) {
+        return transform(wrapped.getContent(recipient));
+    }
+
+    @Override
+    public boolean isPersonalized() {
+        return wrapped.isPersonalized();
     }
 
     @Override
     public void send(Recipient recipient) {
-        wrapped.send(recipient);
+        send(recipient, getContent(recipient));
+    }
+
+    @Override
+    public void send(Recipient recipient, String content) {
+        wrapped.send(recipient, content);
+    }
+}
+
+// ====== Compression codecs ======
+// Byte-level codecs over ByteBuffers. encode/decode read src from position to
+// limit and write into dst at its position; neither allocates. dst must have
+// at least maxEncodedLength(n) bytes free for encode.
+interface Codec {
+    void encode(ByteBuffer src, ByteBuffer dst);
+    void decode(ByteBuffer src, ByteBuffer dst);
+    int maxEncodedLength(int length);
+    String name();
+}
+
+// PackBits-style RLE: a control byte c in 0..127 is followed by c+1 literal
+// bytes; c in -127..-1 means "repeat the next byte 1-c times" (2..128).
+// Unlike the old "ax3" text form this is unambiguous for any input bytes.
+class RleCodec implements Codec {
+    static final RleCodec INSTANCE = new RleCodec();
+
+    public void encode(ByteBuffer src, ByteBuffer dst) {
+        int i = src.position();
+        int end = src.limit();
+        while (i < end) {
+            byte b = src.get(i);
+            int run = 1;
+            while (i + run < end && run < 128 && src.get(i + run) == b) run++;
+            if (run >= 3) {
+                dst.put((byte) (1 - run)).put(b);
+                i += run;
+                continue;
+            }
+            // Literal block: up to 128 bytes, stopping before the next run of 3
+            int start = i;
+            int len = 0;
+            while (i < end && len < 128) {
+                if (i + 2 < end && src.get(i) == src.get(i + 1) && src.get(i) == src.get(i + 2)) break;
+                i++;
+                len++;
+            }
+            dst.put((byte) (len - 1));
+            for (int k = start; k < start + len; k++) dst.put(src.get(k));
+        }
+        src.position(end);
+    }
+
+    public void decode(ByteBuffer src, ByteBuffer dst) {
+        while (src.hasRemaining()) {
+            int c = src.get();
+            if (c >= 0) {
+                for (int k = 0; k <= c; k++) dst.put(src.get());
+            } else {
+                byte b = src.get();
+                for (int k = 0; k < 1 - c; k++) dst.put(b);
+            }
+        }
+    }
+
+    public int maxEncodedLength(int length) {
+        return length + (length + 127) / 128;
+    }
+
+    public String name() {
+        return "rle";
+    }
+}
+
+// Small LZ77 codec (LZ4-like): sequences of varint literal length, literals,
+// 2-byte match offset and varint (match length - 4). The last sequence has
+// literals only. Matches are found through a 4-byte hash table kept per thread.
+class LzCodec implements Codec {
+    static final LzCodec INSTANCE = new LzCodec();
+
+    private static final int MIN_MATCH = 4;
+    private static final int MAX_OFFSET = 65535;
+    private static final int HASH_BITS = 12;
+    private static final ThreadLocal<int[]> TABLE = ThreadLocal.withInitial(() -> new int[1 << HASH_BITS]);
+
+    public void encode(ByteBuffer src, ByteBuffer dst) {
+        int[] table = TABLE.get();
+        Arrays.fill(table, -1);
+        int base = src.position();
+        int end = src.limit();
+        int literalStart = base;
+        int i = base;
+        while (i + MIN_MATCH <= end) {
+            int h = hash(src.getInt(i));
+            int candidate = table[h];
+            table[h] = i;
+            if (candidate >= base && i - candidate <= MAX_OFFSET && src.getInt(candidate) == src.getInt(i)) {
+                int len = MIN_MATCH;
+                while (i + len < end && src.get(candidate + len) == src.get(i + len)) len++;
+                writeLiterals(src, literalStart, i, dst);
+                dst.putShort((short) (i - candidate));
+                writeVarInt(dst, len - MIN_MATCH);
+                i += len;
+                literalStart = i;
+            } else {
+                i++;
+            }
+        }
+        writeLiterals(src, literalStart, end, dst);
+        src.position(end);
+    }
+
+    public void decode(ByteBuffer src, ByteBuffer dst) {
+        while (src.hasRemaining()) {
+            int literals = readVarInt(src);
+            for (int k = 0; k < literals; k++) dst.put(src.get());
+            if (!src.hasRemaining()) break;
+            int offset = src.getShort() & 0xFFFF;
+            int len = readVarInt(src) + MIN_MATCH;
+            int from = dst.position() - offset;
+            for (int k = 0; k < len; k++) dst.put(dst.get(from + k)); // may overlap, byte by byte on purpose
+        }
+    }
+
+    public int maxEncodedLength(int length) {
+        return length + length / 128 + 16;
+    }
+
+    public String name() {
+        return "lz";
+    }
+
+    private static int hash(int fourBytes) {
+        return (fourBytes * -1640531535) >>> (32 - HASH_BITS);
+    }
+
+    private static void writeLiterals(ByteBuffer src, int from, int to, ByteBuffer dst) {
+        writeVarInt(dst, to - from);
+        for (int k = from; k < to; k++) dst.put(src.get(k));
+    }
+
+    static void writeVarInt(ByteBuffer dst, int v) {
+        while ((v & ~0x7F) != 0) {
+            dst.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        dst.put((byte) v);
+    }
+
+    static int readVarInt(ByteBuffer src) {
+        int v = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = src.get();
+            v |= (b & 0x7F) << shift;
+            if (b >= 0) return v;
+        }
     }
 }
 
 // ====== Compression Decorator ======
+// Compresses the UTF-8 bytes of the content with a Codec. The frame is
+// "~" + Base64(varint original length, codec output) so it still travels as
+// String content, and is used only when it is shorter than the text itself;
+// otherwise the text goes out unchanged ("~~" escapes a leading "~", which
+// Base64 never produces). decompress() reverses either form.
 class CompressionDecorator extends NotificationDecorator {
+    private final Codec codec;
 
     public CompressionDecorator(Notification wrapped) {
+        this(wrapped, RleCodec.INSTANCE);
+    }
+
+    public CompressionDecorator(Notification wrapped, Codec codec) {
         super(wrapped);
+        this.codec = codec;
     }
 
+    private static final char FRAME = '~';
+
     private String compress(String s) {
-        StringBuilder sb = new StringBuilder();
-        int n = s.length();
-        for (int i = 0; i < n; ) {
-            char c = s.charAt(i);
-            int j = i + 1;
-            while (j < n && s.charAt(j) == c) j++;
-            int run = j - i;
-            if (run >= 3) {
-                sb.append(c).append('x').append(run);
-            } else {
-                for (int k = 0; k < run; k++) sb.append(c);
-            }
-            i = j;
+        String plain = s.isEmpty() || s.charAt(0) != FRAME ? s : FRAME + s;
+        ByteBuffer src = ByteBuffer.wrap(s.getBytes(StandardCharsets.UTF_8));
+        ByteBuffer dst = ByteBuffer.allocate(5 + codec.maxEncodedLength(src.remaining()));
+        LzCodec.writeVarInt(dst, src.remaining());
+        codec.encode(src, dst);
+        dst.flip();
+        int framedLength = 1 + (dst.limit() + 2) / 3 * 4; // Base64: 4 chars per 3 bytes
+        if (framedLength >= plain.length()) {
+            return plain;
         }
-        return sb.toString();
+        return FRAME + Base64.getEncoder().encodeToString(Arrays.copyOf(dst.array(), dst.limit()));
+    }
+
+    static String decompress(String content, Codec codec) {
+        if (content.isEmpty() || content.charAt(0) != FRAME) return content;
+        if (content.length() > 1 && content.charAt(1) == FRAME) return content.substring(1);
+        ByteBuffer src = ByteBuffer.wrap(Base64.getDecoder().decode(content.substring(1)));
+        int length = LzCodec.readVarInt(src);
+        ByteBuffer dst = ByteBuffer.allocate(length);
+        try {
+            codec.decode(src, dst);
+        } catch (BufferOverflowException | BufferUnderflowException e) {
+            throw new IllegalArgumentException("Corrupt " + codec.name() + " frame", e);
+        }
+        if (dst.hasRemaining()) {
+            throw new IllegalArgumentException("Corrupt " + codec.name() + " frame: expected " + length + " bytes");
+        }
+        return new String(dst.array(), StandardCharsets.UTF_8);
     }
 
     @Override
-    public String getContent() {
-        return compress(wrapped.getContent());
+    protected String transform(String content) {
+        return compress(content);
     }
 
     @Override
-    public void send(Recipient recipient) {
+    public void send(Recipient recipient, String content) {
         System.out.println("[CompressionDecorator] Compressed content for " + recipient.getName());
-        System.out.println("Sending to " + recipient.getName() + ": " + getContent());
+        System.out.println("Sending to " + recipient.getName() + ": " + content);
+    }
+}
+
+// ====== Cipher stages ======
+// Encrypts src (position..limit) into dst at its position. Implementations keep
+// per-thread state, so one stage can be shared by every decorator and thread.
+interface CipherStage {
+    void encrypt(ByteBuffer src, ByteBuffer dst);
+    void decrypt(ByteBuffer src, ByteBuffer dst);
+    int maxOutputLength(int length);
+    // true if the output is still valid UTF-8 text (no Base64 needed)
+    boolean producesText();
+}
+
+// The original Caesar shift, now byte-wise over ASCII letters. Not secure;
+// kept so existing decorator chains behave the same.
+class CaesarCipher implements CipherStage {
+    private final int shift;
+
+    CaesarCipher(int shift) {
+        this.shift = ((shift % 26) + 26) % 26;
+    }
+
+    private static void shift(ByteBuffer src, ByteBuffer dst, int by) {
+        while (src.hasRemaining()) {
+            byte c = src.get();
+            if (c >= 'A' && c <= 'Z') {
+                c = (byte) ('A' + (c - 'A' + by) % 26);
+            } else if (c >= 'a' && c <= 'z') {
+                c = (byte) ('a' + (c - 'a' + by) % 26);
+            }
+            dst.put(c);
+        }
+    }
+
+    public void encrypt(ByteBuffer src, ByteBuffer dst) {
+        shift(src, dst, shift);
+    }
+
+    public void decrypt(ByteBuffer src, ByteBuffer dst) {
+        shift(src, dst, 26 - shift);
+    }
+
+    public int maxOutputLength(int length) {
+        return length;
+    }
+
+    public boolean producesText() {
+        return true;
+    }
+}
+
+// Authenticated encryption through javax.crypto (AES-GCM or ChaCha20-Poly1305).
+// Output: 12-byte nonce followed by ciphertext and 16-byte tag. Every nonce is
+// 96 fresh random bits, so instances and restarts sharing a long-lived key do
+// not collide; keep a key under 2^32 messages (NIST SP 800-38D) and rotate.
+// Cipher instances are cached per thread and fed ByteBuffers directly.
+class AeadCipherStage implements CipherStage {
+    private static final int NONCE_LENGTH = 12;
+    private static final int TAG_LENGTH = 16;
+
+    private final String transformation;
+    private final SecretKey key;
+    // Separate encrypt/decrypt instances: providers refuse to re-init one Cipher with a key/nonce pair it just used
+    private final ThreadLocal<Cipher> encryptors;
+    private final ThreadLocal<Cipher> decryptors;
+    private static final SecureRandom NONCES = new SecureRandom();
+
+    private AeadCipherStage(String transformation, SecretKey key) {
+        this.transformation = transformation;
+        this.key = key;
+        this.encryptors = ThreadLocal.withInitial(this::newCipher);
+        this.decryptors = ThreadLocal.withInitial(this::newCipher);
+    }
+
+    private Cipher newCipher() {
+        try {
+            return Cipher.getInstance(transformation);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(transformation + " is not available", e);
+        }
+    }
+
+    static AeadCipherStage aesGcm(SecretKey key) {
+        return new AeadCipherStage("AES/GCM/NoPadding", key);
+    }
+
+    static AeadCipherStage chaCha20Poly1305(SecretKey key) {
+        return new AeadCipherStage("ChaCha20-Poly1305", key);
+    }
+
+    private AlgorithmParameterSpec spec(byte[] nonce) {
+        return transformation.startsWith("AES") ? new GCMParameterSpec(TAG_LENGTH * 8, nonce) : new IvParameterSpec(nonce);
+    }
+
+    public void encrypt(ByteBuffer src, ByteBuffer dst) {
+        byte[] nonce = new byte[NONCE_LENGTH];
+        NONCES.nextBytes(nonce);
+        try {
+            Cipher cipher = encryptors.get();
+            cipher.init(Cipher.ENCRYPT_MODE, key, spec(nonce));
+            dst.put(nonce);
+            cipher.doFinal(src, dst);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("encryption failed", e);
+        }
+    }
+
+    public void decrypt(ByteBuffer src, ByteBuffer dst) {
+        byte[] nonce = new byte[NONCE_LENGTH];
+        src.get(nonce);
+        try {
+            Cipher cipher = decryptors.get();
+            cipher.init(Cipher.DECRYPT_MODE, key, spec(nonce));
+            cipher.doFinal(src, dst);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("decryption failed", e);
+        }
+    }
+
+    public int maxOutputLength(int length) {
+        return NONCE_LENGTH + length + TAG_LENGTH;
+    }
+
+    public boolean producesText() {
+        return false;
     }
 }
 
 // ====== Encryption Decorator ======
+// Runs the content's UTF-8 bytes through a CipherStage using per-thread
+// reusable buffers; binary output is carried as Base64.
 class EncryptionDecorator extends NotificationDecorator {
-    private final int shift;
+    private static final ThreadLocal<ByteBuffer[]> BUFFERS =
+            ThreadLocal.withInitial(() -> new ByteBuffer[] {ByteBuffer.allocate(1024), ByteBuffer.allocate(1024)});
+
+    private final CipherStage cipher;
 
     public EncryptionDecorator(Notification wrapped, int shift) {
+        this(wrapped, new CaesarCipher(shift));
+    }
+
+    public EncryptionDecorator(Notification wrapped, CipherStage cipher) {
         super(wrapped);
-        this.shift = shift;
+        this.cipher = cipher;
     }
 
-    private String caesar(String s, int shift) {
-        StringBuilder sb = new StringBuilder();
-        for (char c : s.toCharArray()) {
-            if (Character.isUpperCase(c)) {
-                sb.append((char)('A' + (c - 'A' + shift + 26) % 26));
-            } else if (Character.isLowerCase(c)) {
-                sb.append((char)('a' + (c - 'a' + shift + 26) % 26));
-            } else {
-                sb.append(c);
-            }
+    // Per-thread buffer of at least `size` bytes, cleared
+    static ByteBuffer buffer(int slot, int size) {
+        ByteBuffer[] buffers = BUFFERS.get();
+        if (buffers[slot].capacity() < size) {
+            buffers[slot] = ByteBuffer.allocate(Math.max(size, buffers[slot].capacity() * 2));
         }
-        return sb.toString();
+        buffers[slot].clear();
+        return buffers[slot];
     }
 
     @Override
-    public String getContent() {
-        return caesar(wrapped.getContent(), shift);
+    protected String transform(String content) {
+        byte[] plain = content.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer out = buffer(1, cipher.maxOutputLength(plain.length));
+        cipher.encrypt(ByteBuffer.wrap(plain), out);
+        out.flip();
+        if (cipher.producesText()) {
+            return new String(out.array(), 0, out.limit(), StandardCharsets.UTF_8);
+        }
+        return Base64.getEncoder().encodeToString(Arrays.copyOf(out.array(), out.limit()));
+    }
+
+    static String decrypt(String encrypted, CipherStage cipher) {
+        ByteBuffer src = cipher.producesText()
+                ? ByteBuffer.wrap(encrypted.getBytes(StandardCharsets.UTF_8))
+                : ByteBuffer.wrap(Base64.getDecoder().decode(encrypted));
+        ByteBuffer out = buffer(0, src.remaining());
+        cipher.decrypt(src, out);
+        return new String(out.array(), 0, out.position(), StandardCharsets.UTF_8);
     }
 
     @Override
-    public void send(Recipient recipient) {
+    public void send(Recipient recipient, String content) {
         System.out.println("[EncryptionDecorator] Encrypted content for " + recipient.getName());
-        System.out.println("Sending to " + recipient.getName() + ": " + getContent());
+        System.out.println("Sending to " + recipient.getName() + ": " + content);
+    }
+}
+
+// ====== Coarse timestamp source ======
+// Formats the time at most once per second and reuses the text (and its
+// "[ts] " prefix bytes) until the second changes. The Clock is injectable, so
+// tests can pin it with Clock.fixed(...).
+class TimestampSource {
+    static final TimestampSource SYSTEM = new TimestampSource(Clock.systemDefaultZone());
+
+    private static final class Snapshot {
+        final long second;
+        final String text;
+        final String prefix;
+        final byte[] prefixBytes;
+
+        Snapshot(long second, String text) {
+            this.second = second;
+            this.text = text;
+            this.prefix = "[" + text + "] ";
+            this.prefixBytes = prefix.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    private final Clock clock;
+    private final DateTimeFormatter fmt = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private volatile Snapshot current = new Snapshot(Long.MIN_VALUE, "");
+
+    TimestampSource(Clock clock) {
+        this.clock = clock;
+    }
+
+    private Snapshot snapshot() {
+        long second = Math.floorDiv(clock.millis(), 1000);
+        Snapshot s = current;
+        if (s.second != second) {
+            s = new Snapshot(second, LocalDateTime.ofInstant(Instant.ofEpochSecond(second), clock.getZone()).format(fmt));
+            current = s;
+        }
+        return s;
+    }
+
+    String text() {
+        return snapshot().text;
+    }
+
+    // "[yyyy-MM-dd HH:mm:ss] "
+    String prefix() {
+        return snapshot().prefix;
+    }
+
+    // Shared array — callers must not modify it
+    byte[] prefixBytes() {
+        return snapshot().prefixBytes;
     }
 }
 
 // ====== Timestamp Decorator ======
 class TimestampDecorator extends NotificationDecorator {
-    private final DateTimeFormatter fmt = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private final TimestampSource timestamps;
 
     public TimestampDecorator(Notification wrapped) {
+        this(wrapped, TimestampSource.SYSTEM);
+    }
+
+    public TimestampDecorator(Notification wrapped, TimestampSource timestamps) {
         super(wrapped);
+        this.timestamps = timestamps;
+    }
+
+    @Override
+    protected String transform(String content) {
+        return timestamps.prefix().concat(content);
+    }
+
+    @Override
+    public void send(Recipient recipient, String content) {
+        System.out.println("[TimestampDecorator] Adding timestamp for " + recipient.getName());
+        System.out.println("Sending to " + recipient.getName() + ": " + content);
+    }
+}
+
+// ====== Per-broadcast memo ======
+// Materialises the decorator chain once per broadcast: shared content is
+// computed on first use and reused for every recipient; personalized content
+// is computed once per recipient name. Groups wrap incoming notifications in
+// this, so N recipients cost one run of the transforms instead of N.
+class PreparedNotification implements Notification {
+    private final Notification delegate;
+    private volatile String shared;
+    private final Map<String, String> perRecipient = new ConcurrentHashMap<>();
+
+    private PreparedNotification(Notification delegate) {
+        this.delegate = delegate;
+    }
+
+    static Notification of(Notification notification) {
+        return notification instanceof PreparedNotification ? notification : new PreparedNotification(notification);
     }
 
     @Override
     public String getContent() {
-        String ts = LocalDateTime.now().format(fmt);
-        return "[" + ts + "] " + wrapped.getContent();
+        String c = shared;
+        if (c == null) {
+            synchronized (this) {
+                c = shared;
+                if (c == null) {
+                    c = delegate.getContent();
+                    shared = c;
+                }
+            }
+        }
+        return c;
+    }
+
+    @Override
+    public String getContent(Recipient recipient) {
+        if (!delegate.isPersonalized()) {
+            return getContent();
+        }
+        return perRecipient.computeIfAbsent(recipient.getName(), n -> delegate.getContent(recipient));
+    }
+
+    @Override
+    public boolean isPersonalized() {
+        return delegate.isPersonalized();
     }
 
     @Override
     public void send(Recipient recipient) {
-        System.out.println("[TimestampDecorator] Adding timestamp for " + recipient.getName());
-        System.out.println("Sending to " + recipient.getName() + ": " + getContent());
+        delegate.send(recipient, getContent(recipient));
+    }
+
+    @Override
+    public void send(Recipient recipient, String content) {
+        delegate.send(recipient, content);
+    }
+}
+
+// ====== Binary pipeline ======
+// Byte-level counterpart of the decorator chain: each stage reads `in`
+// (position..limit) and writes into `out`, both pooled buffers.
+interface ByteStage {
+    void apply(ByteBuffer in, ByteBuffer out);
+    int maxOutputLength(int length);
+}
+
+// Stage that only prepends bytes. At the start of a pipeline it is fused into
+// loading the source, so it costs no extra pass.
+interface PrefixStage extends ByteStage {
+    byte[] prefix();
+
+    default void apply(ByteBuffer in, ByteBuffer out) {
+        out.put(prefix()).put(in);
+    }
+
+    default int maxOutputLength(int length) {
+        return length + prefix().length;
+    }
+}
+
+// Stage that maps every byte independently. Consecutive map stages are fused
+// into one 256-entry table and run in place in a single pass.
+interface ByteMapStage extends ByteStage {
+    int map(int b); // 0..255 -> 0..255
+
+    default void apply(ByteBuffer in, ByteBuffer out) {
+        while (in.hasRemaining()) out.put((byte) map(in.get() & 0xFF));
+    }
+
+    default int maxOutputLength(int length) {
+        return length;
+    }
+}
+
+class TimestampStage implements PrefixStage {
+    private final TimestampSource timestamps;
+
+    TimestampStage(TimestampSource timestamps) {
+        this.timestamps = timestamps;
+    }
+
+    public byte[] prefix() {
+        return timestamps.prefixBytes();
+    }
+}
+
+class CodecStage implements ByteStage {
+    private final Codec codec;
+
+    CodecStage(Codec codec) {
+        this.codec = codec;
+    }
+
+    public void apply(ByteBuffer in, ByteBuffer out) {
+        codec.encode(in, out);
+    }
+
+    public int maxOutputLength(int length) {
+        return codec.maxEncodedLength(length);
+    }
+}
+
+class CipherByteStage implements ByteStage {
+    private final CipherStage cipher;
+
+    CipherByteStage(CipherStage cipher) {
+        this.cipher = cipher;
+    }
+
+    public void apply(ByteBuffer in, ByteBuffer out) {
+        cipher.encrypt(in, out);
+    }
+
+    public int maxOutputLength(int length) {
+        return cipher.maxOutputLength(length);
+    }
+}
+
+class CaesarStage implements ByteMapStage {
+    private final int shift;
+
+    CaesarStage(int shift) {
+        this.shift = ((shift % 26) + 26) % 26;
+    }
+
+    public int map(int c) {
+        if (c >= 'A' && c <= 'Z') return 'A' + (c - 'A' + shift) % 26;
+        if (c >= 'a' && c <= 'z') return 'a' + (c - 'a' + shift) % 26;
+        return c;
+    }
+}
+
+// Adapter for existing String decorators, e.g. new DecoratorStage(n -> new CompressionDecorator(n)).
+// Allocates (it goes through String content), so prefer native stages on hot paths.
+class DecoratorStage implements ByteStage {
+    private final Function<Notification, Notification> decorator;
+
+    DecoratorStage(Function<Notification, Notification> decorator) {
+        this.decorator = decorator;
+    }
+
+    public void apply(ByteBuffer in, ByteBuffer out) {
+        String content = StandardCharsets.UTF_8.decode(in).toString();
+        out.put(decorator.apply(new SimpleNotification(content)).getContent().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public int maxOutputLength(int length) {
+        return length * 4 + 256; // unknown transform; generous bound
+    }
+}
+
+// Pool of heap ByteBuffers kept in fixed slots, so acquire/release never
+// allocate once warmed up; a buffer that is too small is replaced by a larger one
+class BufferPool {
+    private final AtomicReferenceArray<ByteBuffer> slots;
+    private final int defaultSize;
+
+    BufferPool(int slots, int defaultSize) {
+        this.slots = new AtomicReferenceArray<>(slots);
+        this.defaultSize = defaultSize;
+    }
+
+    ByteBuffer acquire(int minSize) {
+        for (int i = 0; i < slots.length(); i++) {
+            ByteBuffer b = slots.get(i);
+            if (b != null && slots.compareAndSet(i, b, null)) {
+                if (b.capacity() < minSize) break; // drop it, allocate a bigger one
+                b.clear();
+                return b;
+            }
+        }
+        return ByteBuffer.allocate(Math.max(defaultSize, minSize));
+    }
+
+    void release(ByteBuffer b) {
+        for (int i = 0; i < slots.length(); i++) {
+            if (slots.get(i) == null && slots.compareAndSet(i, null, b)) return;
+        }
+        // pool full: let the GC have it
+    }
+}
+
+class BinaryPipeline {
+    private final BufferPool pool;
+    private final List<PrefixStage> leadingPrefixes = new ArrayList<>();
+    private final List<ByteStage> steps = new ArrayList<>();
+
+    BinaryPipeline(BufferPool pool) {
+        this.pool = pool;
+    }
+
+    // Stages run in the order they are added
+    BinaryPipeline then(ByteStage stage) {
+        if (stage instanceof PrefixStage && steps.isEmpty()) {
+            leadingPrefixes.add((PrefixStage) stage);
+        } else if (stage instanceof ByteMapStage) {
+            ByteStage last = steps.isEmpty() ? null : steps.get(steps.size() - 1);
+            FusedMap fused = last instanceof FusedMap ? (FusedMap) last : new FusedMap();
+            fused.andThen((ByteMapStage) stage);
+            if (fused != last) steps.add(fused);
+        } else {
+            steps.add(stage);
+        }
+        return this;
+    }
+
+    int stepCount() {
+        return steps.size() + (leadingPrefixes.isEmpty() ? 0 : 1);
+    }
+
+    // Runs the pipeline; the returned buffer is flipped and comes from the
+    // pool — hand it back with release() when done
+    ByteBuffer process(ByteBuffer source) {
+        int size = source.remaining();
+        for (int i = 0; i < leadingPrefixes.size(); i++) size += leadingPrefixes.get(i).prefix().length;
+        ByteBuffer current = pool.acquire(size);
+        // Later prefixes end up in front, as if each stage had prepended in turn
+        for (int i = leadingPrefixes.size() - 1; i >= 0; i--) {
+            current.put(leadingPrefixes.get(i).prefix());
+        }
+        current.put(source);
+        current.flip();
+
+        for (int s = 0; s < steps.size(); s++) {
+            ByteStage step = steps.get(s);
+            if (step instanceof FusedMap) {
+                ((FusedMap) step).applyInPlace(current);
+                continue;
+            }
+            ByteBuffer next = pool.acquire(step.maxOutputLength(current.remaining()));
+            step.apply(current, next);
+            next.flip();
+            pool.release(current);
+            current = next;
+        }
+        return current;
+    }
+
+    void release(ByteBuffer result) {
+        pool.release(result);
+    }
+
+    // Composition of consecutive ByteMapStages as one lookup table
+    private static class FusedMap implements ByteStage {
+        private final byte[] table = new byte[256];
+
+        FusedMap() {
+            for (int i = 0; i < 256; i++) table[i] = (byte) i;
+        }
+
+        void andThen(ByteMapStage stage) {
+            for (int i = 0; i < 256; i++) table[i] = (byte) stage.map(table[i] & 0xFF);
+        }
+
+        void applyInPlace(ByteBuffer buf) {
+            for (int i = buf.position(); i < buf.limit(); i++) {
+                buf.put(i, table[buf.get(i) & 0xFF]);
+            }
+        }
+
+        public void apply(ByteBuffer in, ByteBuffer out) {
+            while (in.hasRemaining()) out.put(table[in.get() & 0xFF]);
+        }
+
+        public int maxOutputLength(int length) {
+            return length;
+        }
     }
 }
 
@@ -143,14 +904,25 @@ class TimestampDecorator extends NotificationDecorator {
 interface Recipient {
     String getName();
     void receive(Notification notification);
+
+    // Delivery channel used by DeliveryOutbox to batch sends
+    default String getChannel() {
+        return "default";
+    }
 }
 
 // ====== Leaf (User) ======
 class User implements Recipient {
     private final String name;
+    private final String channel;
 
     public User(String name) {
+        this(name, "default");
+    }
+
+    public User(String name, String channel) {
         this.name = name;
+        this.channel = channel;
     }
 
     @Override
@@ -158,6 +930,11 @@ class User implements Recipient {
         return name;
     }
 
+    @Override
+    public String getChannel() {
+        return channel;
+    }
+
     @Override
     public void receive(Notification notification) {
         notification.send(this);
@@ -168,13 +945,67 @@ class User implements Recipient {
 class Group implements Recipient {
     private final String name;
     private final List<Recipient> children = new ArrayList<>();
+    // Flattened index: unique leaf recipient -> number of paths to it through
+    // this group's tree. Kept up to date by add/remove, including in parents.
+    private final Map<Recipient, Integer> leaves = new LinkedHashMap<>();
+    private final List<Group> parents = new ArrayList<>();
 
     public Group(String name) {
         this.name = name;
     }
 
     public void add(Recipient r) {
+        if (r instanceof Group && ((Group) r).isAncestorOrSelf(this)) {
+            throw new IllegalArgumentException("Adding group '" + r.getName() + "' to '" + name + "' would create a cycle");
+        }
         children.add(r);
+        if (r instanceof Group) {
+            Group g = (Group) r;
+            g.parents.add(this);
+            for (Map.Entry<Recipient, Integer> e : g.leaves.entrySet()) {
+                indexLeaf(e.getKey(), e.getValue());
+            }
+        } else {
+            indexLeaf(r, 1);
+        }
+    }
+
+    public boolean remove(Recipient r) {
+        if (!children.remove(r)) return false;
+        if (r instanceof Group) {
+            Group g = (Group) r;
+            g.parents.remove(this);
+            for (Map.Entry<Recipient, Integer> e : g.leaves.entrySet()) {
+                indexLeaf(e.getKey(), -e.getValue());
+            }
+        } else {
+            indexLeaf(r, -1);
+        }
+        return true;
+    }
+
+    // O(1): is r reachable from this group (directly or through subgroups)?
+    public boolean contains(Recipient r) {
+        return leaves.containsKey(r);
+    }
+
+    public int uniqueRecipients() {
+        return leaves.size();
+    }
+
+    private void indexLeaf(Recipient leaf, int delta) {
+        leaves.merge(leaf, delta, (a, b) -> a + b == 0 ? null : a + b);
+        for (Group parent : parents) {
+            parent.indexLeaf(leaf, delta);
+        }
+    }
+
+    private boolean isAncestorOrSelf(Group g) {
+        if (g == this) return true;
+        for (Group parent : g.parents) {
+            if (isAncestorOrSelf(parent)) return true;
+        }
+        return false;
     }
 
     @Override
@@ -182,18 +1013,371 @@ class Group implements Recipient {
         return name;
     }
 
+    // Linear scan of unique leaves: someone in several subgroups gets one delivery
     @Override
     public void receive(Notification notification) {
-        System.out.println("[Group] Sending to group '" + name + "' with " + children.size() + " members.");
-        for (Recipient r : children) {
-            r.receive(notification);
+        System.out.println("[Group] Sending to group '" + name + "' with " + children.size() + " members ("
+                + leaves.size() + " unique recipients).");
+        Notification prepared = PreparedNotification.of(notification);
+        for (Recipient r : leaves.keySet()) {
+            r.receive(prepared);
+        }
+    }
+
+    public CompletableFuture<DeliveryReport> receiveParallel(Notification notification, int parallelism, boolean ordered) {
+        return receiveParallel(notification, ForkJoinPool.commonPool(), parallelism, ordered);
+    }
+
+    // Parallel fan-out: unique leaves are split into at most `parallelism`
+    // contiguous slices delivered concurrently. With ordered == true the report
+    // lists recipients in the same order as receive() would visit them,
+    // otherwise in completion order. Failures are collected, not thrown.
+    public CompletableFuture<DeliveryReport> receiveParallel(Notification notification, Executor executor,
+                                                             int parallelism, boolean ordered) {
+        System.out.println("[Group] Sending to group '" + name + "' in parallel to " + this.leaves.size()
+                + " unique recipients.");
+        Notification prepared = PreparedNotification.of(notification);
+        List<Recipient> leaves = new ArrayList<>(this.leaves.keySet());
+        int slices = Math.max(1, Math.min(parallelism, leaves.size()));
+        int sliceSize = (leaves.size() + slices - 1) / slices;
+        DeliveryResult[] byPosition = new DeliveryResult[leaves.size()];
+        Queue<DeliveryResult> byCompletion = new ConcurrentLinkedQueue<>();
+
+        List<CompletableFuture<Void>> tasks = new ArrayList<>();
+        for (int from = 0; from < leaves.size(); from += sliceSize) {
+            int start = from;
+            int end = Math.min(leaves.size(), from + sliceSize);
+            tasks.add(CompletableFuture.runAsync(() -> {
+                for (int i = start; i < end; i++) {
+                    Recipient r = leaves.get(i);
+                    DeliveryResult result;
+                    try {
+                        r.receive(prepared);
+                        result = new DeliveryResult(r.getName(), null);
+                    } catch (RuntimeException e) {
+                        result = new DeliveryResult(r.getName(), e);
+                    }
+                    byPosition[i] = result;
+                    byCompletion.add(result);
+                }
+            }, executor));
+        }
+        return CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0]))
+                .thenApply(v -> new DeliveryReport(ordered
+                        ? Arrays.asList(byPosition)
+                        : new ArrayList<>(byCompletion)));
+    }
+}
+
+// ====== Parallel delivery results ======
+class DeliveryResult {
+    final String recipient;
+    final Throwable error; // null when delivered
+
+    DeliveryResult(String recipient, Throwable error) {
+        this.recipient = recipient;
+        this.error = error;
+    }
+
+    boolean ok() {
+        return error == null;
+    }
+}
+
+class DeliveryReport {
+    private final List<DeliveryResult> results;
+
+    DeliveryReport(List<DeliveryResult> results) {
+        this.results = results;
+    }
+
+    public List<DeliveryResult> getResults() {
+        return results;
+    }
+
+    public List<DeliveryResult> getFailures() {
+        List<DeliveryResult> failures = new ArrayList<>();
+        for (DeliveryResult r : results) {
+            if (!r.ok()) failures.add(r);
+        }
+        return failures;
+    }
+
+    @Override
+    public String toString() {
+        return results.size() + " deliveries, " + getFailures().size() + " failed";
+    }
+}
+
+// ====== Delivery outbox ======
+class OutboxEntry {
+    final long id;
+    final String channel;
+    final String recipient;
+    final String content;
+
+    OutboxEntry(long id, String channel, String recipient, String content) {
+        this.id = id;
+        this.channel = channel;
+        this.recipient = recipient;
+        this.content = content;
+    }
+}
+
+// Delivers one batch for a channel; throwing means the whole batch is retried
+interface ChannelSender {
+    void sendBatch(String channel, List<OutboxEntry> batch) throws Exception;
+}
+
+class ConsoleChannelSender implements ChannelSender {
+    public void sendBatch(String channel, List<OutboxEntry> batch) {
+        System.out.println("[" + channel + "] batch of " + batch.size());
+        for (OutboxEntry e : batch) {
+            System.out.println("Sending to " + e.recipient + ": " + e.content);
+        }
+    }
+}
+
+// Collects sends instead of delivering them one by one, and flushes them per
+// channel in batches. Every send is journaled when it is enqueued ("P" line)
+// and marked done after its batch succeeds ("D" line), so pending sends
+// survive a crash and are replayed on the next start. Journal writes are
+// group-committed: P lines are buffered and reach the disk with one force()
+// when sync() runs, which broadcast() does once per broadcast and flush()
+// does before sending. A send is durable only after that.
+// Delivery is at-least-once: a crash between sending a batch and journaling it
+// as done resends that batch.
+class DeliveryOutbox implements AutoCloseable {
+    private final Path journal;
+    private final ChannelSender sender;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long backoffMillis;
+    // Guarded by this; enqueue only appends, so the head of a queue is stable
+    // while the single flusher is sending it
+    private final Map<String, Deque<OutboxEntry>> pending = new LinkedHashMap<>();
+    private final StringBuilder unsynced = new StringBuilder();
+    private final Base64.Encoder b64 = Base64.getEncoder();
+    private final FileChannel out;
+    // One flush at a time; held while sending, but never needed by enqueue
+    private final Object flushLock = new Object();
+    private long nextId;
+    private int pendingCount;
+
+    DeliveryOutbox(Path journal, ChannelSender sender, int batchSize, int maxAttempts, long backoffMillis)
+            throws IOException {
+        if (batchSize < 1 || maxAttempts < 1) {
+            throw new IllegalArgumentException("batchSize and maxAttempts must be positive");
+        }
+        this.journal = journal;
+        this.sender = sender;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+        this.out = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            recover();
+        } catch (IOException | RuntimeException e) {
+            out.close();
+            throw e;
+        }
+    }
+
+    // Wraps a notification so that sending it enqueues here instead of printing
+    Notification collect(Notification notification) {
+        return new Notification() {
+            public String getContent() {
+                return notification.getContent();
+            }
+
+            public String getContent(Recipient recipient) {
+                return notification.getContent(recipient);
+            }
+
+            public boolean isPersonalized() {
+                return notification.isPersonalized();
+            }
+
+            public void send(Recipient recipient) {
+                enqueue(recipient, notification.getContent(recipient));
+            }
+
+            public void send(Recipient recipient, String content) {
+                enqueue(recipient, content);
+            }
+        };
+    }
+
+    // Enqueues one send per recipient of `to` and makes them all durable with
+    // a single force(), however large the group
+    void broadcast(Recipient to, Notification notification) throws IOException {
+        to.receive(collect(notification));
+        sync();
+    }
+
+    // Journals the send in memory only; see sync()
+    synchronized void enqueue(Recipient recipient, String content) {
+        OutboxEntry e = new OutboxEntry(nextId++, recipient.getChannel(), recipient.getName(), content);
+        unsynced.append("P\t").append(e.id).append('\t').append(encode(e.channel)).append('\t')
+                .append(encode(e.recipient)).append('\t').append(encode(e.content)).append('\n');
+        add(e);
+    }
+
+    // Group commit: writes every buffered record and forces once. Records are
+    // durable once this returns: force() reaches the disk, not just the OS
+    // page cache, so the journal survives a power loss too
+    synchronized void sync() throws IOException {
+        if (unsynced.length() == 0) return;
+        ByteBuffer buf = ByteBuffer.wrap(unsynced.toString().getBytes(StandardCharsets.UTF_8));
+        while (buf.hasRemaining()) out.write(buf);
+        out.force(false);
+        unsynced.setLength(0);
+    }
+
+    synchronized int pendingCount() {
+        return pendingCount;
+    }
+
+    // Sends everything pending, batch by batch; returns the number delivered.
+    // A batch that still fails after maxAttempts stays pending for the next flush.
+    // Batches are taken under the lock but sent, retried and backed off outside
+    // it, so enqueue() never waits for a slow channel.
+    int flush() throws IOException {
+        synchronized (flushLock) {
+            List<String> channels;
+            synchronized (this) {
+                sync();
+                channels = new ArrayList<>(pending.keySet());
+            }
+            int delivered = 0;
+            for (String channel : channels) {
+                while (true) {
+                    List<OutboxEntry> batch = nextBatch(channel);
+                    if (batch.isEmpty() || !sendWithRetry(channel, batch)) break;
+                    markDone(channel, batch);
+                    delivered += batch.size();
+                }
+            }
+            synchronized (this) {
+                pending.values().removeIf(Deque::isEmpty);
+                if (pendingCount == 0 && unsynced.length() == 0) {
+                    compact();
+                }
+            }
+            return delivered;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (flushLock) {
+            synchronized (this) {
+                try {
+                    sync();
+                } finally {
+                    out.close();
+                }
+            }
+        }
+    }
+
+    private synchronized List<OutboxEntry> nextBatch(String channel) {
+        Deque<OutboxEntry> queue = pending.get(channel);
+        if (queue == null || queue.isEmpty()) return Collections.emptyList();
+        List<OutboxEntry> batch = new ArrayList<>(Math.min(batchSize, queue.size()));
+        Iterator<OutboxEntry> it = queue.iterator();
+        while (it.hasNext() && batch.size() < batchSize) batch.add(it.next());
+        return batch;
+    }
+
+    // The batch is still the head of the queue: only the flusher removes
+    private synchronized void markDone(String channel, List<OutboxEntry> batch) throws IOException {
+        Deque<OutboxEntry> queue = pending.get(channel);
+        for (OutboxEntry e : batch) {
+            queue.removeFirst();
+            unsynced.append("D\t").append(e.id).append('\n');
+        }
+        pendingCount -= batch.size();
+        sync();
+    }
+
+    private boolean sendWithRetry(String channel, List<OutboxEntry> batch) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                sender.sendBatch(channel, batch);
+                return true;
+            } catch (Exception ex) {
+                System.out.println("[Outbox] Batch of " + batch.size() + " on '" + channel + "' failed (attempt "
+                        + attempt + "/" + maxAttempts + "): " + ex.getMessage());
+                if (attempt >= maxAttempts) return false;
+                try {
+                    Thread.sleep(backoffMillis << (attempt - 1));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+    }
+
+    // Rebuilds the pending set from the journal: every P without a matching D.
+    // A torn last line (crash mid-write) is cut off so the next record starts
+    // on a line of its own.
+    private void recover() throws IOException {
+        ByteBuffer data = ByteBuffer.allocate((int) out.size());
+        while (data.hasRemaining() && out.read(data, data.position()) >= 0) { }
+        int end = data.position();
+        while (end > 0 && data.get(end - 1) != '\n') end--;
+        if (end < data.position()) {
+            out.truncate(end);
+            out.force(false);
         }
+        out.position(end);
+
+        Map<Long, OutboxEntry> open = new LinkedHashMap<>();
+        String text = new String(data.array(), 0, end, StandardCharsets.UTF_8);
+        for (String line : text.split("\n")) {
+            String[] f = line.split("\t", -1);
+            try {
+                if (f[0].equals("P") && f.length == 5) {
+                    long id = Long.parseLong(f[1]);
+                    open.put(id, new OutboxEntry(id, decode(f[2]), decode(f[3]), decode(f[4])));
+                    nextId = Math.max(nextId, id + 1);
+                } else if (f[0].equals("D") && f.length == 2) {
+                    open.remove(Long.parseLong(f[1]));
+                }
+            } catch (IllegalArgumentException ex) {
+                // corrupt record: skip it
+            }
+        }
+        for (OutboxEntry e : open.values()) add(e);
+    }
+
+    // Nothing pending: start the journal over so it does not grow forever
+    private void compact() throws IOException {
+        out.truncate(0);
+        out.position(0);
+        out.force(false);
+    }
+
+    private void add(OutboxEntry e) {
+        pending.computeIfAbsent(e.channel, c -> new ArrayDeque<>()).addLast(e);
+        pendingCount++;
+    }
+
+    private String encode(String s) {
+        return b64.encodeToString(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String s) {
+        return new String(Base64.getDecoder().decode(s), StandardCharsets.UTF_8);
     }
 }
 
 // ====== Main (Demo) ======
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws GeneralSecurityException, IOException {
         Notification base = new SimpleNotification("Hello team!!! This is an important message!!!!");
 
         // Decorate dynamically at runtime
@@ -216,5 +1400,94 @@ public class Main {
 
         // Send notification
         all.receive(decorated);
+
+        // Parallel fan-out with per-recipient results in sequential order
+        System.out.println();
+        DeliveryReport report = all.receiveParallel(decorated, 4, true).join();
+        for (DeliveryResult r : report.getResults()) {
+            System.out.println(" - " + r.recipient + ": " + (r.ok() ? "delivered" : "failed (" + r.error + ")"));
+        }
+        System.out.println("Parallel delivery: " + report);
+
+        // Carol is also in Backend now, but still gets one delivery; Bob leaves
+        System.out.println();
+        backend.add(carol);
+        backend.remove(bob);
+        System.out.println("All contains Bob: " + all.contains(bob) + ", Carol: " + all.contains(carol));
+        all.receive(new SimpleNotification("Index check"));
+
+        // Per-recipient content is still computed once per recipient, not per layer call
+        System.out.println();
+        all.receive(new TimestampDecorator(new PersonalizedNotification("Hi {name}, standup moved to 11:00")));
+
+        // Compressed content can be decoded back; short text that would not shrink stays as is
+        System.out.println();
+        Notification digest = new SimpleNotification("Build #41 failed on ci-runner-3; Build #42 failed on ci-runner-3; "
+                + "Build #43 failed on ci-runner-3; Build #44 failed on ci-runner-3");
+        for (Notification n : new Notification[]{base, digest}) {
+            String packed = new CompressionDecorator(n, LzCodec.INSTANCE).getContent();
+            System.out.println("LZ " + n.getContent().length() + " -> " + packed.length() + " chars, round-trip ok: "
+                    + CompressionDecorator.decompress(packed, LzCodec.INSTANCE).equals(n.getContent()));
+        }
+
+        // Injectable clock: a fixed time gives a reproducible timestamp
+        TimestampSource fixed = new TimestampSource(Clock.fixed(Instant.parse("2025-01-01T09:00:00Z"), ZoneOffset.UTC));
+        System.out.println("Fixed clock: " + new TimestampDecorator(base, fixed).getContent());
+
+        // Binary pipeline: timestamp fused into the source load, two Caesar stages fused into one pass
+        BinaryPipeline pipeline = new BinaryPipeline(new BufferPool(8, 4096))
+                .then(new TimestampStage(fixed))
+                .then(new CaesarStage(3))
+                .then(new CaesarStage(-3))
+                .then(new CodecStage(RleCodec.INSTANCE));
+        ByteBuffer message = ByteBuffer.wrap(base.getContent().getBytes(StandardCharsets.UTF_8));
+        ByteBuffer out = pipeline.process(message.rewind());
+        ByteBuffer decoded = ByteBuffer.allocate(256);
+        RleCodec.INSTANCE.decode(out, decoded);
+        pipeline.release(out);
+        System.out.println("Pipeline (" + pipeline.stepCount() + " passes for 4 stages): "
+                + new String(decoded.array(), 0, decoded.position(), StandardCharsets.UTF_8));
+
+        // Existing decorators plug in through DecoratorStage
+        BinaryPipeline adapted = new BinaryPipeline(new BufferPool(2, 256))
+                .then(new DecoratorStage(n -> new CompressionDecorator(n, LzCodec.INSTANCE)));
+        ByteBuffer adaptedOut = adapted.process(message.rewind());
+        System.out.println("Adapted LZ round-trip: " + CompressionDecorator.decompress(
+                StandardCharsets.UTF_8.decode(adaptedOut).toString(), LzCodec.INSTANCE));
+        adapted.release(adaptedOut);
+
+        // AES-GCM stage in the same decorator chain
+        KeyGenerator keys = KeyGenerator.getInstance("AES");
+        keys.init(256);
+        CipherStage aes = AeadCipherStage.aesGcm(keys.generateKey());
+        String sealed = new EncryptionDecorator(base, aes).getContent();
+        System.out.println("AES-GCM: " + sealed);
+        System.out.println("AES-GCM round-trip: " + EncryptionDecorator.decrypt(sealed, aes));
+
+        // Outbox: a broadcast is journaled with one fsync, grouped by channel and
+        // flushed in batches.
+        // The first flush hits a flaky "sms" channel; the journal keeps its sends
+        // pending, and a new outbox on the same journal delivers them.
+        System.out.println();
+        Group oncall = new Group("On-call");
+        oncall.add(alice);
+        oncall.add(new User("Dave", "sms"));
+        oncall.add(new User("Erin", "sms"));
+        oncall.add(new User("Frank", "sms"));
+        Path journal = Files.createTempFile("outbox", ".journal");
+        ChannelSender console = new ConsoleChannelSender();
+        ChannelSender smsDown = (channel, batch) -> {
+            if (channel.equals("sms")) throw new IOException("sms gateway unavailable");
+            console.sendBatch(channel, batch);
+        };
+        try (DeliveryOutbox outbox = new DeliveryOutbox(journal, smsDown, 2, 2, 10)) {
+            outbox.broadcast(oncall, new SimpleNotification("Disk almost full on db-1"));
+            System.out.println("[Outbox] Delivered " + outbox.flush() + ", pending " + outbox.pendingCount());
+        }
+        try (DeliveryOutbox outbox = new DeliveryOutbox(journal, console, 2, 2, 10)) {
+            System.out.println("[Outbox] Recovered " + outbox.pendingCount() + " pending from journal");
+            System.out.println("[Outbox] Delivered " + outbox.flush() + ", pending " + outbox.pendingCount());
+        }
+        Files.deleteIfExists(journal);
     }
 }
@@ -0,0 +1,130 @@
+package hw5;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+// RLE and LZ over log-like, chat and JSON corpora; one op is one whole corpus,
+// so the primary score is not comparable across corpora. Compare the
+// secondary result instead: "megabytes" is uncompressed MB/s (input for
+// encode, output for decode). The compression ratio (uncompressed / compressed
+// size) does not depend on timing, so it is computed once in setup, where the
+// round trip is also checked, and printed at teardown.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CodecBenchmark {
+    private static final String[] NAMES = {"alice", "bob", "carol", "dave", "erin", "frank"};
+
+    private static final String[] CHAT = {
+            "Hello team!!! This is an important message!!!!",
+            "Standup moved to 11:00, please update your calendars.",
+            "Deploy finished, all checks green.",
+            "Can someone review PR 42 before lunch?",
+    };
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Bytes {
+        public double megabytes;
+    }
+
+    @Param({"rle", "lz"})
+    public String codec;
+
+    @Param({"alerts", "chat", "json"})
+    public String corpus;
+
+    private Codec coder;
+    private ByteBuffer src;
+    private ByteBuffer encoded;
+    private ByteBuffer packed;
+    private ByteBuffer decoded;
+    private double inputMegabytes;
+    private double ratio;
+
+    @Setup
+    public void setUp() {
+        byte[] input = corpus(corpus);
+        coder = codec.equals("lz") ? LzCodec.INSTANCE : RleCodec.INSTANCE;
+        src = ByteBuffer.wrap(input);
+        encoded = ByteBuffer.allocate(coder.maxEncodedLength(input.length));
+        decoded = ByteBuffer.allocate(input.length);
+
+        coder.encode(src, encoded);
+        encoded.flip();
+        packed = encoded.duplicate();
+        coder.decode(packed, decoded);
+        if (!Arrays.equals(input, Arrays.copyOf(decoded.array(), decoded.position()))) {
+            throw new IllegalStateException(codec + " round-trip failed on " + corpus);
+        }
+        inputMegabytes = input.length / 1e6;
+        ratio = (double) input.length / encoded.limit();
+    }
+
+    @TearDown
+    public void printRatio() {
+        System.out.printf("%n%s on %s: compression ratio %.2f%n", codec, corpus, ratio);
+    }
+
+    @Benchmark
+    public int encode(Bytes counters) {
+        src.rewind();
+        encoded.clear();
+        coder.encode(src, encoded);
+        counters.megabytes += inputMegabytes;
+        return encoded.position();
+    }
+
+    @Benchmark
+    public int decode(Bytes counters) {
+        packed.rewind();
+        decoded.clear();
+        coder.decode(packed, decoded);
+        counters.megabytes += inputMegabytes;
+        return decoded.position();
+    }
+
+    private static byte[] corpus(String name) {
+        Random rnd = new Random(42);
+        switch (name) {
+            case "alerts":
+                return repeatLines(20_000, i -> "2026-10-16T10:" + (10 + rnd.nextInt(50)) + ":" + (10 + rnd.nextInt(50))
+                        + " [WARNING] Memory usage exceeded " + (50 + rnd.nextInt(50)) + "% on node-" + rnd.nextInt(64) + "\n");
+            case "chat":
+                return repeatLines(20_000, i -> "@" + NAMES[rnd.nextInt(NAMES.length)] + " "
+                        + CHAT[rnd.nextInt(CHAT.length)] + "\n");
+            case "json":
+                return repeatLines(10_000, i -> "{\"id\":" + rnd.nextInt(1_000_000) + ",\"user\":\""
+                        + NAMES[rnd.nextInt(NAMES.length)] + "\",\"status\":\"delivered\",\"retries\":" + rnd.nextInt(3) + "}\n");
+            default:
+                throw new IllegalArgumentException("Unknown corpus: " + name);
+        }
+    }
+
+    private static byte[] repeatLines(int n, IntFunction<String> line) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) sb.append(line.apply(i));
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
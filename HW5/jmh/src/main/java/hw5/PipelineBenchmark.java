@@ -0,0 +1,48 @@
+package hw5;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+
+// One message through the pooled binary pipeline. With -prof gc the
+// gc.alloc.rate.norm line should stay near 0 B/op once the pool is warm.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PipelineBenchmark {
+    private final BinaryPipeline pipeline = new BinaryPipeline(new BufferPool(8, 4096))
+            .then(new TimestampStage(new TimestampSource(Clock.systemDefaultZone())))
+            .then(new CaesarStage(3))
+            .then(new CaesarStage(-3))
+            .then(new CodecStage(RleCodec.INSTANCE));
+    private ByteBuffer message;
+
+    @Setup
+    public void setUp() {
+        message = ByteBuffer.wrap("Hello team!!! This is an important message!!!!".getBytes(StandardCharsets.UTF_8));
+    }
+
+    // The buffer goes back to the pool, so only its length escapes
+    @Benchmark
+    public int process() {
+        ByteBuffer out = pipeline.process(message.rewind());
+        int length = out.remaining();
+        pipeline.release(out);
+        return length;
+    }
+}
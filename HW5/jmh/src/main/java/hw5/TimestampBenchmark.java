@@ -0,0 +1,47 @@
+package hw5;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+// Formatting on every call (the old decorator) versus the coarse cached
+// source. Run with -prof gc for B/op.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class TimestampBenchmark {
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final String content = "Hello team!!! This is an important message!!!!";
+    private final TimestampSource source = new TimestampSource(Clock.systemDefaultZone());
+
+    @Benchmark
+    public String formatPerCall() {
+        String ts = LocalDateTime.now().format(FORMAT);
+        return "[" + ts + "] " + content;
+    }
+
+    @Benchmark
+    public String cachedSource() {
+        return source.prefix().concat(content);
+    }
+
+    @Benchmark
+    public byte[] cachedPrefixBytes() {
+        return source.prefixBytes();
+    }
+}
@@ -1,36 +1,636 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.lang.ref.Reference;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
 
 // ========== Flyweight: shared intrinsic state ==========
 class ImageData {
+    private static final AtomicInteger createdCount = new AtomicInteger();
+
     private final String name;
-    private final String bytes; 
+    private final ByteBuffer bytes; // read-only: в куче или off-heap (ImageArena)
 
     public ImageData(String name) {
+        this(name, null);
+    }
+
+    // arena == null — данные в куче, иначе в direct/mapped памяти арены
+    public ImageData(String name, ImageArena arena) {
+        createdCount.incrementAndGet();
         this.name = name;
-        this.bytes = "BINARY_DATA_OF_" + name + "_" + UUID.randomUUID().toString().substring(0, 8);
+        this.bytes = store(("BINARY_DATA_OF_" + name + "_" + UUID.randomUUID().toString().substring(0, 8))
+                .getBytes(StandardCharsets.UTF_8), arena);
         System.out.println("[ImageData] created intrinsic data for: " + name);
     }
 
+    // Восстановление из снимка пула: payload уже готов, тяжёлое создание не повторяется
+    public ImageData(String name, ByteBuffer saved, ImageArena arena) {
+        this.name = name;
+        this.bytes = store(saved, arena);
+        System.out.println("[ImageData] restored from snapshot: " + name);
+    }
+
+    private ByteBuffer store(byte[] raw, ImageArena arena) {
+        return store(ByteBuffer.wrap(raw), arena);
+    }
+
+    // Место в арене освобождается, когда этот ImageData станет недостижим
+    private ByteBuffer store(ByteBuffer src, ImageArena arena) {
+        int size = src.remaining();
+        ByteBuffer buf = arena == null ? ByteBuffer.allocate(size) : arena.allocate(size, this);
+        buf.put(src).flip();
+        return buf.asReadOnlyBuffer();
+    }
+
     public String getName() {
         return name;
     }
 
+    // Байты в арене живут, пока достижим этот ImageData, а view в них владельца
+    // не держит. Поэтому view наружу не отдаётся: payload читают только методы
+    // ниже, и каждый держит this достижимым до конца чтения (reachabilityFence).
+
+    // Копирует payload в строку — для горячего пути используйте copyTo()
     public String getBytes() {
-        return bytes;
+        try {
+            return StandardCharsets.UTF_8.decode(bytes.duplicate()).toString();
+        } finally {
+            Reference.reachabilityFence(this);
+        }
+    }
+
+    // Копия payload-а в куче: её можно хранить сколько угодно
+    public ByteBuffer payload() {
+        try {
+            ByteBuffer copy = ByteBuffer.allocate(bytes.remaining());
+            copy.put(bytes.duplicate()).flip();
+            return copy.asReadOnlyBuffer();
+        } finally {
+            Reference.reachabilityFence(this);
+        }
+    }
+
+    public int size() {
+        return bytes.remaining();
+    }
+
+    // Копия length байт payload-а с позиции from в dst, без промежуточных буферов
+    public void copyTo(int from, byte[] dst, int offset, int length) {
+        try {
+            bytes.get(from, dst, offset, length);
+        } finally {
+            Reference.reachabilityFence(this);
+        }
+    }
+
+    // Zero-copy запись header и payload-а в канал (для снимка пула)
+    public void writeTo(FileChannel ch, ByteBuffer header) throws IOException {
+        try {
+            ImageFlyweightFactory.writeFully(ch, header, bytes.duplicate());
+        } finally {
+            Reference.reachabilityFence(this);
+        }
+    }
+
+    // Сколько раз реально создавались тяжёлые данные (для проверки дубликатов)
+    public static int createdCount() {
+        return createdCount.get();
+    }
+}
+
+// ========== Off-heap арена для payload-ов ImageData ==========
+// Память выделяется сегментами (direct ByteBuffer или memory-mapped временный файл)
+// и нарезается bump-указателем. У сегмента есть счётчик живых выделений: место
+// возвращается, когда владелец (ImageData) стал недостижим — после вытеснения из
+// пула и из кэша RealImage, так что байты не перезаписываются, пока их кто-то
+// читает. Опустевший сегмент переиспользуется или отпускается (mapped-файл
+// удаляется), поэтому арена растёт с числом живых изображений, а не со всеми,
+// что когда-либо загружались.
+class ImageArena {
+    private static final Cleaner CLEANER = Cleaner.create();
+    private static final int SPARE_SEGMENTS = 1; // пустые сегменты про запас
+
+    private static final class Segment {
+        final ByteBuffer memory;
+        final Path file; // null для direct-памяти
+        int live;        // выделения, чьи владельцы ещё достижимы
+
+        Segment(ByteBuffer memory, Path file) {
+            this.memory = memory;
+            this.file = file;
+        }
+    }
+
+    private final int segmentBytes;
+    private final Path dir; // null — direct-память, иначе mapped-файлы в этом каталоге
+    private final List<Segment> segments = new ArrayList<>();
+    private final ArrayDeque<Segment> spare = new ArrayDeque<>();
+    private Segment current;
+    private long liveBytes;
+    private long releasedBytes;
+
+    private ImageArena(int segmentBytes, Path dir) {
+        this.segmentBytes = segmentBytes;
+        this.dir = dir;
+    }
+
+    public static ImageArena direct(int segmentBytes) {
+        return new ImageArena(segmentBytes, null);
+    }
+
+    // Страницы mapped-файла вытесняет ОС, так что пул может превышать и кучу, и RAM
+    public static ImageArena mapped(Path dir, int segmentBytes) {
+        return new ImageArena(segmentBytes, dir);
+    }
+
+    // owner держит выделенные байты: пока он достижим, место не переиспользуется
+    public synchronized ByteBuffer allocate(int size, Object owner) {
+        if (size > segmentBytes) {
+            throw new IllegalArgumentException("payload of " + size + " bytes exceeds segment size " + segmentBytes);
+        }
+        if (current == null || current.memory.remaining() < size) {
+            current = spare.isEmpty() ? newSegment() : spare.poll();
+            segments.add(current);
+        }
+        Segment segment = current;
+        ByteBuffer slice = segment.memory.slice();
+        slice.limit(size);
+        segment.memory.position(segment.memory.position() + size);
+        segment.live++;
+        liveBytes += size;
+        CLEANER.register(owner, () -> release(segment, size)); // лямбда не должна держать owner
+        return slice;
+    }
+
+    // Вызывается Cleaner-ом: владелец недостижим, а ImageData не выпускает view
+    // в свои байты, так что читателей у освобождаемого места уже нет
+    private synchronized void release(Segment segment, int size) {
+        liveBytes -= size;
+        releasedBytes += size;
+        if (--segment.live > 0) return;
+        if (segment == current) {
+            segment.memory.clear(); // пустой текущий сегмент заполняется с начала
+            return;
+        }
+        segments.remove(segment);
+        if (spare.size() < SPARE_SEGMENTS) {
+            segment.memory.clear();
+            spare.add(segment);
+        } else if (segment.file != null) {
+            // Имя файла исчезает сразу, место на диске ОС вернёт после сборки отображения
+            try {
+                Files.deleteIfExists(segment.file);
+            } catch (IOException e) {
+                // временный файл всё равно удалится при выходе
+            }
+        }
+    }
+
+    private Segment newSegment() {
+        if (dir == null) {
+            return new Segment(ByteBuffer.allocateDirect(segmentBytes), null);
+        }
+        try {
+            Path file = Files.createTempFile(dir, "image-arena-", ".bin");
+            file.toFile().deleteOnExit();
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                return new Segment(ch.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes), file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot map arena segment in " + dir, e);
+        }
+    }
+
+    public synchronized String stats() {
+        return (dir == null ? "direct" : "mapped") + ", segments=" + segments.size() + " (+" + spare.size()
+                + " spare), live=" + liveBytes + "B, released=" + releasedBytes + "B";
+    }
+}
+
+// ========== Ограниченный кэш с вытеснением ==========
+// Чтение без блокировок (ConcurrentHashMap), single-flight загрузка через общий
+// CompletableFuture, вытеснение по CLOCK (приближение LRU) с лимитом по "весу"
+// (по умолчанию 1 запись = 1), опциональный expire-after-access и счётчики.
+// Записи, удалённые мимо CLOCK (истечение, clear), периодически вычищаются из
+// очереди вместе с истёкшими, чтобы очередь не росла и не держала значения.
+class BoundedCache<K, V> {
+    private static final class Node<K, V> {
+        static final int LOADING = 0, COUNTED = 1, REMOVED = 2;
+
+        final K key;
+        final CompletableFuture<V> future = new CompletableFuture<>();
+        // Вес записи учитывается в totalWeight ровно один раз и снимается ровно один раз
+        final AtomicInteger state = new AtomicInteger(LOADING);
+        volatile long weight;
+        volatile long lastAccess;
+        volatile boolean referenced;
+
+        Node(K key, long now) {
+            this.key = key;
+            this.lastAccess = now;
+        }
+    }
+
+    private final ConcurrentHashMap<K, Node<K, V>> map = new ConcurrentHashMap<>();
+    // Загруженные записи в порядке вставки — "циферблат" для CLOCK
+    private final ConcurrentLinkedQueue<Node<K, V>> clock = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final long maxWeight;
+    private final ToLongFunction<V> weigher;
+    private final long expireAfterAccessNanos; // 0 = без истечения
+    private final AtomicLong totalWeight = new AtomicLong();
+    // Удалённые записи, ещё стоящие в clock, и вставки с последней чистки
+    private final AtomicInteger deadInClock = new AtomicInteger();
+    private final AtomicInteger insertsSinceSweep = new AtomicInteger();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private volatile Consumer<? super K> evictionListener; // null — без уведомлений
+
+    public BoundedCache(long maxSize) {
+        this(maxSize, v -> 1, 0);
+    }
+
+    public BoundedCache(long maxWeight, ToLongFunction<V> weigher, long expireAfterAccessMillis) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("maxWeight must be positive: " + maxWeight);
+        }
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.expireAfterAccessNanos = expireAfterAccessMillis * 1_000_000L;
+    }
+
+    // listener получает ключ каждой вытесненной или истёкшей записи (не clear()).
+    // Вызывается под замком вытеснения или в потоке чтения — должен быть быстрым.
+    public void onEviction(Consumer<? super K> listener) {
+        evictionListener = listener;
+    }
+
+    private void evicted(K key) {
+        evictions.increment();
+        Consumer<? super K> listener = evictionListener;
+        if (listener != null) listener.accept(key);
+    }
+
+    // Только уже загруженное значение, без загрузки
+    public V getIfPresent(K key) {
+        Node<K, V> n = liveNode(key);
+        if (n == null || !n.future.isDone() || n.future.isCompletedExceptionally()) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return n.future.join();
+    }
+
+    // Возвращает значение, загружая его ровно один раз на отсутствующий ключ;
+    // остальные потоки с тем же ключом ждут тот же future
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        return get(key, loader, null);
+    }
+
+    // onHit (может быть null) вызывается, когда значение не пришлось грузить этому потоку
+    public V get(K key, Function<? super K, ? extends V> loader, Consumer<? super K> onHit) {
+        Node<K, V> n = liveNode(key);
+        if (n != null) {
+            hits.increment();
+            if (onHit != null) onHit.accept(key);
+            return n.future.join();
+        }
+        Node<K, V> created = new Node<>(key, System.nanoTime());
+        Node<K, V> existing = map.putIfAbsent(key, created);
+        if (existing != null) {
+            hits.increment();
+            existing.referenced = true;
+            if (onHit != null) onHit.accept(key);
+            return existing.future.join();
+        }
+        misses.increment();
+        V value;
+        try {
+            value = loader.apply(key);
+        } catch (RuntimeException | Error e) {
+            if (map.remove(key, created)) detachOutsideClock(created);
+            created.future.completeExceptionally(e);
+            throw e;
+        }
+        created.weight = weigher.applyAsLong(value);
+        created.future.complete(value);
+        // Если запись уже убрали (clear(), истечение) — загрузка не учитывается
+        if (created.state.compareAndSet(Node.LOADING, Node.COUNTED)) {
+            totalWeight.addAndGet(created.weight);
+            clock.add(created);
+            evictIfNeeded();
+        }
+        int threshold = Math.max(64, map.size());
+        if (insertsSinceSweep.incrementAndGet() >= threshold || deadInClock.get() >= threshold) {
+            sweep();
+        }
+        return value;
+    }
+
+    // Вызывается после успешного map.remove(key, n); true — вес был учтён
+    private boolean detach(Node<K, V> n) {
+        if (n.state.compareAndSet(Node.COUNTED, Node.REMOVED)) {
+            totalWeight.addAndGet(-n.weight);
+            return true;
+        }
+        n.state.compareAndSet(Node.LOADING, Node.REMOVED);
+        return false;
+    }
+
+    // Удаление не из цикла вытеснения: учтённая запись остаётся в clock мёртвой
+    private void detachOutsideClock(Node<K, V> n) {
+        if (detach(n)) {
+            deadInClock.incrementAndGet();
+        }
+    }
+
+    // Убирает из clock мёртвые записи и вытесняет истёкшие; O(размер) раз в
+    // O(размер) вставок, то есть амортизированно O(1)
+    private void sweep() {
+        if (!evictionLock.tryLock()) return; // чистит тот, кто держит замок
+        try {
+            insertsSinceSweep.set(0);
+            long now = System.nanoTime();
+            // Счётчик приблизительный: после полного прохода мёртвых в очереди нет
+            deadInClock.set(0);
+            clock.removeIf(n -> {
+                if (n.state.get() == Node.REMOVED) {
+                    return true;
+                }
+                if (expireAfterAccessNanos > 0 && now - n.lastAccess > expireAfterAccessNanos
+                        && map.remove(n.key, n)) {
+                    detach(n);
+                    evicted(n.key);
+                    return true;
+                }
+                return false;
+            });
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private Node<K, V> liveNode(K key) {
+        Node<K, V> n = map.get(key);
+        if (n == null) return null;
+        if (expireAfterAccessNanos > 0) {
+            long now = System.nanoTime();
+            if (n.future.isDone() && now - n.lastAccess > expireAfterAccessNanos) {
+                if (map.remove(key, n)) {
+                    detachOutsideClock(n);
+                    evicted(key);
+                }
+                return null;
+            }
+            n.lastAccess = now;
+        }
+        // Пишем флаг только при смене значения, чтобы горячие чтения не гоняли кэш-линию между ядрами
+        if (!n.referenced) n.referenced = true;
+        return n;
+    }
+
+    // CLOCK: запись с поднятым флагом получает второй шанс, иначе вытесняется.
+    // Кто не взял замок, оставляет работу держателю: тот после unlock снова
+    // проверяет вес, так что превышение, добавленное во время чистки, не теряется.
+    private void evictIfNeeded() {
+        while (totalWeight.get() > maxWeight && evictionLock.tryLock()) {
+            boolean progress;
+            try {
+                progress = evictLocked();
+            } finally {
+                evictionLock.unlock();
+            }
+            if (!progress) return;
+        }
+    }
+
+    // false — clock опустел раньше, чем вес ушёл под лимит (остальное ещё грузится)
+    private boolean evictLocked() {
+        while (totalWeight.get() > maxWeight) {
+            Node<K, V> n = clock.poll();
+            if (n == null) return false;
+            if (n.state.get() == Node.REMOVED) { // запись уже удалена
+                deadInClock.updateAndGet(d -> d > 0 ? d - 1 : 0);
+                continue;
+            }
+            if (n.referenced) {
+                n.referenced = false;
+                clock.add(n);
+                continue;
+            }
+            if (map.remove(n.key, n)) {
+                detach(n);
+                evicted(n.key);
+            }
+        }
+        return true;
+    }
+
+    // Проверка без влияния на счётчики и CLOCK
+    public boolean contains(K key) {
+        return map.containsKey(key);
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    public long weight() {
+        return totalWeight.get();
+    }
+
+    public Set<K> keys() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(map.keySet()));
+    }
+
+    // Обход только успешно загруженных записей, без влияния на счётчики и CLOCK
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        for (Node<K, V> n : map.values()) {
+            if (n.future.isDone() && !n.future.isCompletedExceptionally()) {
+                action.accept(n.key, n.future.join());
+            }
+        }
+    }
+
+    public void clear() {
+        evictionLock.lock();
+        try {
+            for (Node<K, V> n : map.values()) {
+                if (map.remove(n.key, n)) detach(n);
+            }
+            clock.clear();
+            deadInClock.set(0);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public String stats() {
+        return "size=" + map.size() + ", weight=" + totalWeight.get() + "/" + maxWeight
+                + ", hits=" + hits.sum() + ", misses=" + misses.sum() + ", evictions=" + evictions.sum();
     }
 }
 
 // Flyweight Factory возвращает общие ImageData
 class ImageFlyweightFactory {
-    private static final Map<String, ImageData> pool = new HashMap<>();
+    // По умолчанию — до 10 000 изображений; размер можно заменить через setPool()
+    private static volatile BoundedCache<String, ImageData> pool = withListener(new BoundedCache<>(10_000));
+    private static volatile Consumer<String> evictionListener; // null — никто не следит
+    private static volatile ImageArena arena; // null — payload-ы в куче
+    // Записи снимка, ещё не поднятые в пул (ленивый warm start): срезы
+    // memory-mapped файла, а не копии — payload-ы остаются в page cache ОС
+    private static final Map<String, ByteBuffer> snapshot = new ConcurrentHashMap<>();
+
+    private static final int SNAPSHOT_MAGIC = 0x494D4732; // "IMG2"
+
+    // Без глобальной блокировки: попадания читаются lock-free, промах грузится один раз
+    public static ImageData getImageData(String name) {
+        return pool.get(name, n -> {
+            ByteBuffer saved = snapshot.remove(n);
+            return saved != null ? new ImageData(n, saved, arena) : new ImageData(n, arena);
+        });
+    }
+
+    // Формат: magic, count, затем (длина имени, имя UTF-8, длина, байты) для каждой записи.
+    // Пишется во временный файл и атомарно подменяет старый: уже отображённый
+    // в память прежний снимок остаётся целым.
+    public static int saveSnapshot(Path file) throws IOException {
+        List<ImageData> entries = new ArrayList<>();
+        pool.forEach((name, data) -> entries.add(data));
+        Path dir = file.toAbsolutePath().getParent();
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(8).putInt(SNAPSHOT_MAGIC).putInt(entries.size());
+                writeFully(ch, header.flip());
+                for (ImageData d : entries) {
+                    byte[] name = d.getName().getBytes(StandardCharsets.UTF_8);
+                    ByteBuffer meta = ByteBuffer.allocate(8 + name.length)
+                            .putInt(name.length).put(name).putInt(d.size());
+                    d.writeTo(ch, meta.flip());
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return entries.size();
+    }
+
+    // Пока не опустеет каждый буфер: у пустого payload-а последний буфер пуст
+    // с самого начала, а заголовок записи всё равно должен попасть в файл
+    static void writeFully(FileChannel ch, ByteBuffer... buffers) throws IOException {
+        while (Arrays.stream(buffers).anyMatch(ByteBuffer::hasRemaining)) {
+            ch.write(buffers);
+        }
+    }
 
-    public static synchronized ImageData getImageData(String name) {
-        ImageData d = pool.get(name);
-        if (d == null) {
-            d = new ImageData(name);
-            pool.put(name, d);
+    // Отображает снимок в память и запоминает только срезы по записям;
+    // ImageData создаются (с копией в арену или кучу) лениво при первом запросе.
+    // Повреждённый снимок — IOException, и из него не берётся ни одна запись.
+    public static Set<String> loadSnapshot(Path file) throws IOException {
+        Map<String, ByteBuffer> entries = new LinkedHashMap<>();
+        ByteBuffer map;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (ch.size() > Integer.MAX_VALUE) {
+                throw new IOException("snapshot too large to map: " + file);
+            }
+            map = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+        try {
+            if (map.getInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("not an image pool snapshot: " + file);
+            }
+            int count = map.getInt();
+            for (int i = 0; i < count; i++) {
+                byte[] name = new byte[length(map, file)];
+                map.get(name);
+                int length = length(map, file);
+                ByteBuffer payload = map.slice();
+                payload.limit(length);
+                map.position(map.position() + length);
+                entries.put(new String(name, StandardCharsets.UTF_8), payload.asReadOnlyBuffer());
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("truncated image pool snapshot: " + file, e);
+        }
+        snapshot.putAll(entries);
+        return entries.keySet();
+    }
+
+    // Длина из файла: отрицательная или длиннее остатка — снимок повреждён
+    private static int length(ByteBuffer map, Path file) throws IOException {
+        int length = map.getInt();
+        if (length < 0 || length > map.remaining()) {
+            throw new IOException("corrupt image pool snapshot: length " + length + " at offset "
+                    + (map.position() - 4) + " in " + file);
         }
-        return d;
+        return length;
+    }
+
+    public static void setArena(ImageArena offHeap) {
+        arena = offHeap;
+    }
+
+    public static String getArenaStats() {
+        ImageArena a = arena;
+        return a == null ? "heap" : a.stats();
+    }
+
+    // Замена пула — вытеснение всего, что было в старом
+    public static void setPool(BoundedCache<String, ImageData> cache) {
+        BoundedCache<String, ImageData> old = pool;
+        pool = withListener(cache);
+        Consumer<String> listener = evictionListener;
+        if (listener != null) {
+            old.keys().forEach(listener);
+        }
+    }
+
+    private static BoundedCache<String, ImageData> withListener(BoundedCache<String, ImageData> cache) {
+        cache.onEviction(ImageFlyweightFactory::evicted);
+        return cache;
+    }
+
+    private static void evicted(String name) {
+        Consumer<String> listener = evictionListener;
+        if (listener != null) listener.accept(name);
+    }
+
+    // Узнавать об ImageData, покинувших пул (для AccessPredictor)
+    public static void setEvictionListener(Consumer<String> listener) {
+        evictionListener = listener;
+    }
+
+    public static boolean isLoaded(String name) {
+        return pool.contains(name);
     }
 
     public static int getPoolSize() {
@@ -38,7 +638,401 @@ class ImageFlyweightFactory {
     }
 
     public static Set<String> getKeys() {
-        return Collections.unmodifiableSet(pool.keySet());
+        return pool.keys();
+    }
+
+    public static String getStats() {
+        return pool.stats();
+    }
+}
+
+// ========== Prefetch: предсказание следующего изображения ==========
+// Учится на логе доступа ImageProxy: для каждого пользователя запоминает предыдущее
+// изображение и считает переходы prev -> next. display() только кладёт событие в
+// очередь; обучение и решения о prefetch выполняет на executor один обработчик за
+// раз, по порядку событий, и подгружает через ImageFlyweightFactory самые частые
+// следующие изображения. Топ-K по каждому изображению поддерживается при обучении,
+// поэтому predict() ничего не сортирует. Подгруженное, но вытесненное до запроса
+// попаданием не считается и может быть подгружено снова.
+class AccessPredictor {
+    private static final int MAX_USERS = 10_000;    // последние активные пользователи
+    private static final int MAX_QUEUED = 10_000;   // дальше события отбрасываются
+    private static final int MAX_PENDING = 10_000;  // неиспользованных подгрузок сразу
+
+    private static final class Access {
+        final String user;
+        final String image;
+
+        Access(String user, String image) {
+            this.user = user;
+            this.image = image;
+        }
+    }
+
+    // Переходы из одного изображения. Меняет только обработчик очереди;
+    // predict() читает готовый неизменяемый топ через volatile
+    private static final class Successors {
+        private final Map<String, long[]> counts = new HashMap<>();
+        private final String[] top;
+        private int topSize;
+        private volatile List<String> ranked = Collections.emptyList();
+
+        Successors(int topK) {
+            this.top = new String[topK];
+        }
+
+        void increment(String next) {
+            long[] count = counts.computeIfAbsent(next, k -> new long[1]);
+            count[0]++;
+            int i = indexOf(next);
+            if (i < 0) {
+                if (topSize < top.length) {
+                    i = topSize++;
+                } else if (count[0] > counts.get(top[topSize - 1])[0]) {
+                    i = topSize - 1;
+                } else {
+                    return; // топ не изменился
+                }
+                top[i] = next;
+            } else if (i == 0 || counts.get(top[i - 1])[0] >= count[0]) {
+                return; // место в топе то же
+            }
+            while (i > 0 && counts.get(top[i - 1])[0] < count[0]) {
+                top[i] = top[i - 1];
+                top[--i] = next;
+            }
+            ranked = Collections.unmodifiableList(Arrays.asList(Arrays.copyOf(top, topSize)));
+        }
+
+        private int indexOf(String next) {
+            for (int i = 0; i < topSize; i++) {
+                if (top[i].equals(next)) return i;
+            }
+            return -1;
+        }
+    }
+
+    private final Executor executor;
+    private final int topK;
+    private final ConcurrentLinkedQueue<Access> events = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    // Только для обработчика очереди; вытесняет давно не заходивших пользователей
+    private final Map<String, String> lastByUser = new LinkedHashMap<String, String>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_USERS;
+        }
+    };
+    private final BoundedCache<String, Successors> transitions = new BoundedCache<>(100_000);
+    // Подгружено заранее, ещё никем не запрошено и ещё в пуле: имя уходит отсюда
+    // при запросе или вытеснении, после чего его снова можно подгрузить
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final LongAdder issued = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicInteger loading = new AtomicInteger(); // запущенные, но не завершённые подгрузки
+    // Монитор для awaitIdle(): обработчик и подгрузки будят ждущих, только если они есть
+    private final Object idle = new Object();
+    private volatile int idleWaiters;
+
+    public AccessPredictor(Executor executor, int topK) {
+        if (topK <= 0) {
+            throw new IllegalArgumentException("topK must be positive: " + topK);
+        }
+        this.executor = executor;
+        this.topK = topK;
+    }
+
+    // Вызывается из display(): без сортировок и обхода переходов
+    public void record(String user, String name) {
+        // Попадание — только если подгруженное ещё в пуле (или ещё грузится)
+        if (pending.remove(name) && ImageFlyweightFactory.isLoaded(name)) {
+            hits.increment();
+        }
+        if (queued.incrementAndGet() > MAX_QUEUED) {
+            queued.decrementAndGet();
+            dropped.increment();
+            return;
+        }
+        events.add(new Access(user, name));
+        if (draining.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    // Один обработчик за раз; перепроверка после сброса флага не теряет событие,
+    // добавленное, пока флаг ещё стоял
+    private void drain() {
+        do {
+            Access a;
+            while ((a = events.poll()) != null) {
+                queued.decrementAndGet();
+                learn(a.user, a.image);
+            }
+            draining.set(false);
+        } while (!events.isEmpty() && draining.compareAndSet(false, true));
+        signalIdle();
+    }
+
+    // ImageFlyweightFactory: name покинул пул
+    void evicted(String name) {
+        pending.remove(name);
+    }
+
+    private void learn(String user, String name) {
+        String prev = lastByUser.put(user, name);
+        if (prev != null && !prev.equals(name)) {
+            transitions.get(prev, k -> new Successors(topK)).increment(name);
+        }
+        for (String next : predict(name)) {
+            if (!ImageFlyweightFactory.isLoaded(next) && pending.size() < MAX_PENDING && pending.add(next)) {
+                issued.increment();
+                loading.incrementAndGet();
+                executor.execute(() -> {
+                    try {
+                        ImageFlyweightFactory.getImageData(next);
+                    } finally {
+                        if (loading.decrementAndGet() == 0) signalIdle();
+                    }
+                });
+            }
+        }
+    }
+
+    // topK самых частых переходов из name, по убыванию частоты
+    public List<String> predict(String name) {
+        Successors next = transitions.getIfPresent(name);
+        return next == null ? Collections.emptyList() : next.ranked;
+    }
+
+    // Дождаться, пока обработаны все события, записанные до вызова, и завершены
+    // запущенные по ним подгрузки (для демо и тестов)
+    public void awaitIdle() {
+        if (!busy()) return;
+        boolean interrupted = false;
+        synchronized (idle) {
+            idleWaiters++;
+            try {
+                while (busy()) {
+                    try {
+                        idle.wait();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            } finally {
+                idleWaiters--;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean busy() {
+        return draining.get() || !events.isEmpty() || loading.get() > 0;
+    }
+
+    // Смена состояния видна до чтения idleWaiters, так что ждущий либо уже
+    // увидит её в busy(), либо получит notify
+    private void signalIdle() {
+        if (idleWaiters > 0) {
+            synchronized (idle) {
+                idle.notifyAll();
+            }
+        }
+    }
+
+    public String stats() {
+        long total = issued.sum();
+        long used = hits.sum();
+        return "issued=" + total + ", hits=" + used
+                + ", hitRate=" + (total == 0 ? 0 : used * 100 / total) + "%"
+                + ", unused=" + pending.size() + ", droppedEvents=" + dropped.sum();
+    }
+}
+
+// ========== Асинхронный журнал доступа ==========
+// Кольцевой буфер заранее созданных событий: display() только заполняет поля
+// свободного слота, форматирование и вывод в консоль делает фоновый поток.
+// При переполнении событие отбрасывается (счётчик dropped), display не ждёт.
+// Потребитель спит, пока нет событий, и освобождает слоты (tail) только после
+// того, как пачка строк выведена: flush() возвращается, когда всё напечатано.
+// В синхронном режиме (демо) строка печатается сразу в потоке показа, по порядку
+// с остальным выводом.
+class AccessLog {
+    static final int REQUEST = 0, CACHE_HIT = 1;
+
+    private static final class Event {
+        volatile long sequence = -1; // запись sequence публикует событие потребителю
+        int kind;
+        String user;
+        String image;
+        boolean granted;
+    }
+
+    private final Event[] ring;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong(); // следующий слот для записи
+    private volatile long tail;                        // первый ещё не выведенный слот
+    private final LongAdder dropped = new LongAdder();
+    private final Thread consumer;
+    private volatile boolean sleeping;
+    // Монитор для flush(): потребитель будит ждущих, только если они есть
+    private final Object drained = new Object();
+    private volatile int flushWaiters;
+    private volatile boolean synchronous;
+
+    public AccessLog(int capacityPowerOfTwo) {
+        if (Integer.bitCount(capacityPowerOfTwo) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacityPowerOfTwo);
+        }
+        ring = new Event[capacityPowerOfTwo];
+        for (int i = 0; i < ring.length; i++) {
+            ring[i] = new Event();
+        }
+        mask = capacityPowerOfTwo - 1;
+        consumer = new Thread(this::drainLoop, "access-log");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    public void record(String user, String image, boolean granted) {
+        publish(REQUEST, user, image, granted);
+    }
+
+    public void recordCacheHit(String image) {
+        publish(CACHE_HIT, null, image, true);
+    }
+
+    // Переключать, пока показов нет: уже записанные события сначала выводятся
+    public void setSynchronous(boolean on) {
+        flush();
+        synchronous = on;
+    }
+
+    private void publish(int kind, String user, String image, boolean granted) {
+        if (synchronous) {
+            StringBuilder sb = new StringBuilder();
+            format(kind, user, image, granted, sb);
+            System.out.print(sb);
+            return;
+        }
+        long seq;
+        do {
+            seq = head.get();
+            if (seq - tail >= ring.length) {
+                dropped.increment();
+                return;
+            }
+        } while (!head.compareAndSet(seq, seq + 1));
+        Event e = ring[(int) (seq & mask)];
+        e.kind = kind;
+        e.user = user;
+        e.image = image;
+        e.granted = granted;
+        e.sequence = seq;
+        if (sleeping) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    private void drainLoop() {
+        StringBuilder sb = new StringBuilder(4096);
+        long next = tail;
+        while (true) {
+            Event e = ring[(int) (next & mask)];
+            if (e.sequence == next) {
+                format(e.kind, e.user, e.image, e.granted, sb);
+                e.user = null;
+                e.image = null;
+                next++;
+                if (sb.length() < 64 * 1024) continue;
+            }
+            if (sb.length() > 0) {
+                print(sb);
+                sb.setLength(0);
+                tail = next; // слоты свободны и строки уже выведены
+                if (flushWaiters > 0) {
+                    synchronized (drained) {
+                        drained.notifyAll();
+                    }
+                }
+                continue;
+            }
+            // Пусто: засыпаем до unpark() от производителя (повторная проверка
+            // после sleeping = true не даёт потерять пробуждение)
+            sleeping = true;
+            if (ring[(int) (next & mask)].sequence != next) {
+                LockSupport.park(this);
+            }
+            sleeping = false;
+        }
+    }
+
+    // UTF-8, как строки показа RealImage, через буферы потребителя: без String на пачку
+    private final CharsetEncoder utf8 = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private char[] chars = new char[0];
+    private CharBuffer charView = CharBuffer.wrap(chars);
+    private ByteBuffer bytes = ByteBuffer.allocate(0);
+
+    private void print(StringBuilder sb) {
+        int length = sb.length();
+        if (chars.length < length) {
+            chars = new char[Math.max(length, 64 * 1024 + 1024)];
+            charView = CharBuffer.wrap(chars);
+            bytes = ByteBuffer.allocate((int) (chars.length * utf8.maxBytesPerChar()));
+        }
+        sb.getChars(0, length, chars, 0);
+        charView.clear().limit(length);
+        bytes.clear();
+        utf8.reset();
+        utf8.encode(charView, bytes, true);
+        utf8.flush(bytes);
+        System.out.write(bytes.array(), 0, bytes.position());
+    }
+
+    private static void format(int kind, String user, String image, boolean granted, StringBuilder sb) {
+        if (kind == CACHE_HIT) {
+            sb.append("[ImageProxy] RealImage taken from cache for: ").append(image).append('\n');
+            return;
+        }
+        sb.append("[ImageProxy] user='").append(user).append("' requests '").append(image).append("'\n");
+        if (!granted) {
+            sb.append("[ImageProxy] ACCESS DENIED for user '").append(user)
+                    .append("' to image '").append(image).append("'\n");
+        }
+    }
+
+    // Дождаться, пока фоновый поток выведет всё записанное до вызова
+    public void flush() {
+        long target = head.get();
+        if (tail >= target) return;
+        boolean interrupted = false;
+        synchronized (drained) {
+            flushWaiters++;
+            try {
+                while (tail < target) {
+                    try {
+                        drained.wait();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            } finally {
+                flushWaiters--;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long dropped() {
+        return dropped.sum();
     }
 }
 
@@ -50,16 +1044,70 @@ interface Image {
 
 // RealImage использует Flyweight
 class RealImage implements Image {
+    private static final byte[] MIDDLE = "' (data id: ".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] LINE_END = (")" + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+    // Строка показа собирается здесь и уходит в System.out одним write: вывод
+    // фонового AccessLog не может вклиниться в её середину. Буфер не растёт:
+    // строка длиннее него пишется частями под замком потока.
+    private static final int LINE_BYTES = 8 * 1024;
+    private static final ThreadLocal<byte[]> line = ThreadLocal.withInitial(() -> new byte[LINE_BYTES]);
+
     private final ImageData data;
+    private final byte[] header; // "Displaying '<name>' to user '", кодируется один раз
 
     public RealImage(ImageData data) {
         this.data = data;
+        this.header = ("Displaying '" + data.getName() + "' to user '").getBytes(StandardCharsets.UTF_8);
         System.out.println("[RealImage] instantiated for: " + data.getName());
     }
 
+    // Пишет в текущий System.out, так что System.setOut() перенаправляет и показы,
+    // а порядок с остальным выводом через System.out сохраняется без flush()
     @Override
     public void display(String user) {
-        System.out.println("Displaying '" + data.getName() + "' to user '" + user + "' (data id: " + data.getBytes() + ")");
+        PrintStream out = System.out;
+        byte[] buf = line.get();
+        byte[] userUtf8 = isAscii(user) ? null : user.getBytes(StandardCharsets.UTF_8);
+        int userLength = userUtf8 == null ? user.length() : userUtf8.length;
+        int payload = data.size();
+        int total = header.length + userLength + MIDDLE.length + payload + LINE_END.length;
+        if (total <= buf.length) {
+            int n = put(buf, 0, header);
+            if (userUtf8 == null) {
+                for (int i = 0; i < userLength; i++) buf[n++] = (byte) user.charAt(i);
+            } else {
+                n = put(buf, n, userUtf8);
+            }
+            n = put(buf, n, MIDDLE);
+            data.copyTo(0, buf, n, payload);
+            put(buf, n + payload, LINE_END);
+            out.write(buf, 0, total);
+            return;
+        }
+        synchronized (out) {
+            out.write(header, 0, header.length);
+            byte[] name = userUtf8 != null ? userUtf8 : user.getBytes(StandardCharsets.ISO_8859_1);
+            out.write(name, 0, name.length);
+            out.write(MIDDLE, 0, MIDDLE.length);
+            for (int from = 0; from < payload; from += buf.length) {
+                int chunk = Math.min(buf.length, payload - from);
+                data.copyTo(from, buf, 0, chunk);
+                out.write(buf, 0, chunk);
+            }
+            out.write(LINE_END, 0, LINE_END.length);
+        }
+    }
+
+    private static int put(byte[] buf, int at, byte[] part) {
+        System.arraycopy(part, 0, buf, at, part.length);
+        return at + part.length;
+    }
+
+    private static boolean isAscii(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) >= 0x80) return false;
+        }
+        return true;
     }
 
     @Override
@@ -69,55 +1117,90 @@ class RealImage implements Image {
 }
 
 // ========== Proxy pattern ==========
+// Прокси хранит только имя, поэтому один и тот же экземпляр можно показывать
+// многократно и из разных потоков (MediaFacade их переиспользует)
 class ImageProxy implements Image {
     private final String name;
-    private ImageData flyweightData;
-    private RealImage realImage;
 
-    private static final Map<String, RealImage> realImageCache = new HashMap<>();
+    private static volatile BoundedCache<String, RealImage> realImageCache = new BoundedCache<>(1_000);
+    private static volatile AccessPredictor predictor; // null — prefetch выключен
+    private static final AccessLog accessLog = new AccessLog(1 << 14);
+    // Решения об авторизации, общие для всех прокси: имя изображения -> (пользователь -> решение).
+    // Попадание — два lookup-а без аллокаций; промах спрашивает политику.
+    // При переполнении кеш просто сбрасывается целиком.
+    private static final int MAX_DECISIONS = 100_000;
+    private static final ConcurrentHashMap<String, ConcurrentHashMap<String, Boolean>> decisions =
+            new ConcurrentHashMap<>();
+    private static final AtomicInteger decisionCount = new AtomicInteger();
+    // Увеличение версии отменяет решения, которые считались по старой политике
+    private static final AtomicInteger policyVersion = new AtomicInteger();
+    private static volatile BiPredicate<String, String> accessPolicy = ImageProxy::defaultPolicy;
+    // Без захвата состояния: один экземпляр на всё время, показ ничего не аллоцирует
+    private static final Function<String, RealImage> LOAD_REAL_IMAGE =
+            n -> new RealImage(ImageFlyweightFactory.getImageData(n));
+    private static final Consumer<String> LOG_CACHE_HIT = ImageProxy::logCacheHit;
 
     public ImageProxy(String name) {
         this.name = name;
     }
 
+    // private_* видит только admin
+    static boolean defaultPolicy(String user, String image) {
+        return !image.startsWith("private_") || "admin".equalsIgnoreCase(user);
+    }
+
     private boolean authorized(String user) {
-        if (name.startsWith("private_")) {
-            return "admin".equalsIgnoreCase(user);
+        ConcurrentHashMap<String, Boolean> byUser = decisions.get(name);
+        if (byUser != null) {
+            Boolean cached = byUser.get(user);
+            if (cached != null) return cached;
         }
-        return true;
+        int version = policyVersion.get();
+        boolean allowed = accessPolicy.test(user, name);
+        if (decisionCount.incrementAndGet() > MAX_DECISIONS) {
+            decisions.clear();
+            decisionCount.set(0);
+        }
+        byUser = decisions.computeIfAbsent(name, n -> new ConcurrentHashMap<>());
+        byUser.put(user, allowed);
+        if (policyVersion.get() != version) {
+            byUser.remove(user, allowed); // политику сменили, пока считали решение
+        }
+        return allowed;
     }
 
-    // Логирование доступа
-    private void logAccess(String user) {
-        System.out.println("[ImageProxy] user='" + user + "' requests '" + name + "'");
+    // Логирование доступа: событие уходит в кольцевой буфер, вывод — в фоновом потоке
+    private void logAccess(String user, boolean granted) {
+        accessLog.record(user, name, granted);
+        AccessPredictor p = predictor;
+        if (p != null) {
+            p.record(user, name);
+        }
     }
 
-    // Получаем или создаём RealImage через FlyweightFactory 
+    // Получаем или создаём RealImage через FlyweightFactory; попадание —
+    // lock-free чтение кэша без аллокаций
     private RealImage getRealImage() {
-        if (realImage != null) return realImage;
+        return realImageCache.get(name, LOAD_REAL_IMAGE, LOG_CACHE_HIT);
+    }
 
-        synchronized (realImageCache) {
-            RealImage cached = realImageCache.get(name);
-            if (cached != null) {
-                realImage = cached;
-                System.out.println("[ImageProxy] RealImage taken from cache for: " + name);
-                return realImage;
-            }
-            flyweightData = ImageFlyweightFactory.getImageData(name);
-            realImage = new RealImage(flyweightData);
+    private static void logCacheHit(String image) {
+        accessLog.recordCacheHit(image); // в том же журнале, что и строка запроса
+    }
 
-            realImageCache.put(name, realImage);
-            return realImage;
-        }
+    // Загрузка без показа (для параллельной подготовки галереи); false — доступ запрещён
+    public boolean preload(String user) {
+        if (!authorized(user)) return false;
+        getRealImage();
+        return true;
     }
 
     @Override
     public void display(String user) {
-        logAccess(user);
-
         // Контроль доступа
-        if (!authorized(user)) {
-            System.out.println("[ImageProxy] ACCESS DENIED for user '" + user + "' to image '" + name + "'");
+        boolean granted = authorized(user);
+        logAccess(user, granted);
+        if (!granted) {
             return;
         }
 
@@ -133,31 +1216,109 @@ class ImageProxy implements Image {
 
     // Статистика кеша 
     public static int cacheSize() {
-        synchronized (realImageCache) {
-            return realImageCache.size();
-        }
+        return realImageCache.size();
+    }
+
+    public static String cacheStats() {
+        return realImageCache.stats();
     }
 
     public static void clearCache() {
-        synchronized (realImageCache) {
-            realImageCache.clear();
+        realImageCache.clear();
+    }
+
+    public static void setCache(BoundedCache<String, RealImage> cache) {
+        realImageCache = cache;
+    }
+
+    public static void invalidateAuthorization() {
+        policyVersion.incrementAndGet();
+        decisions.clear();
+        decisionCount.set(0);
+    }
+
+    // Политика (user, image) -> доступ разрешён; смена сбрасывает кеш решений
+    public static void setAccessPolicy(BiPredicate<String, String> policy) {
+        accessPolicy = policy;
+        invalidateAuthorization();
+    }
+
+    public static int cachedDecisions() {
+        int n = 0;
+        for (ConcurrentHashMap<String, Boolean> byUser : decisions.values()) n += byUser.size();
+        return n;
+    }
+
+    public static void flushAccessLog() {
+        accessLog.flush();
+    }
+
+    // true — строки журнала печатаются сразу, перед выводом показа (для демо)
+    public static void setSynchronousAccessLog(boolean on) {
+        accessLog.setSynchronous(on);
+    }
+
+    public static long droppedLogEvents() {
+        return accessLog.dropped();
+    }
+
+    public static void setPredictor(AccessPredictor accessPredictor) {
+        predictor = accessPredictor;
+        ImageFlyweightFactory.setEvictionListener(accessPredictor == null ? null : accessPredictor::evicted);
+    }
+
+    public static void awaitPredictor() {
+        AccessPredictor p = predictor;
+        if (p != null) {
+            p.awaitIdle();
         }
     }
+
+    public static String predictorStats() {
+        AccessPredictor p = predictor;
+        return p == null ? "disabled" : p.stats();
+    }
 }
 
 // ========== Facade pattern: упрощённый интерфейс работы с медиасистемой ==========
 class MediaFacade {
+    private final Executor executor;
+    // Прокси без состояния, кроме имени: показ не создаёт их заново
+    private final BoundedCache<String, ImageProxy> proxies = new BoundedCache<>(10_000);
+
+    public MediaFacade() {
+        this(defaultExecutor());
+    }
+
+    public MediaFacade(Executor executor) {
+        this.executor = executor;
+    }
+
+    // Виртуальные потоки, если JVM их поддерживает (JDK 21+), иначе пул daemon-потоков
+    private static Executor defaultExecutor() {
+        try {
+            return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "media-loader");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    private ImageProxy proxy(String imageName) {
+        return proxies.get(imageName, ImageProxy::new);
+    }
 
     public void viewImage(String imageName, String user) {
-        ImageProxy proxy = new ImageProxy(imageName);
-        proxy.display(user);
+        proxy(imageName).display(user);
     }
 
     public void viewGallery(List<String> imageNames, String user) {
         System.out.println("\n[MediaFacade] Viewing gallery for user: " + user);
-        for (String name : imageNames) {
-            ImageProxy proxy = new ImageProxy(name);
-            proxy.display(user);
+        for (int i = 0; i < imageNames.size(); i++) {
+            proxy(imageNames.get(i)).display(user);
         }
     }
 
@@ -168,12 +1329,83 @@ class MediaFacade {
         }
     }
 
+    // Асинхронная галерея: один Proxy на уникальное имя, загрузка параллельно,
+    // показ — в исходном порядке, когда загружено всё
+    public CompletableFuture<Void> viewGalleryAsync(List<String> imageNames, String user) {
+        Map<String, ImageProxy> unique = new LinkedHashMap<>();
+        for (String name : imageNames) {
+            unique.computeIfAbsent(name, this::proxy);
+        }
+        CompletableFuture<?>[] loads = unique.values().stream()
+                .map(p -> CompletableFuture.runAsync(() -> p.preload(user), executor))
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(loads).thenRun(() -> {
+            System.out.println("\n[MediaFacade] Viewing gallery for user: " + user
+                    + " (" + unique.size() + " unique of " + imageNames.size() + ")");
+            for (String name : imageNames) {
+                unique.get(name).display(user);
+            }
+        });
+    }
+
+
+    public CompletableFuture<Void> preloadImagesAsync(List<String> imageNames) {
+        System.out.println("\n[MediaFacade] Preloading images in parallel: " + imageNames);
+        CompletableFuture<?>[] loads = new LinkedHashSet<>(imageNames).stream()
+                .map(name -> CompletableFuture.runAsync(() -> ImageFlyweightFactory.getImageData(name), executor))
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(loads);
+    }
+
+    // Фоновая подгрузка topK наиболее вероятных следующих изображений
+    public void enablePrefetch(int topK) {
+        ImageProxy.setPredictor(new AccessPredictor(executor, topK));
+    }
+
+    public void disablePrefetch() {
+        ImageProxy.setPredictor(null);
+    }
+
+    // Снимок пула flyweight-ов для быстрого старта после перезапуска
+    public void saveSnapshot(Path file) throws IOException {
+        int saved = ImageFlyweightFactory.saveSnapshot(file);
+        System.out.println("[MediaFacade] Saved " + saved + " flyweights to " + file);
+    }
+
+    // prewarm == false — ленивый подъём при первом запросе, иначе фоновая загрузка в пул.
+    // Снимок — только ускорение: нечитаемый или повреждённый файл означает холодный старт.
+    public CompletableFuture<Void> loadSnapshot(Path file, boolean prewarm) {
+        Set<String> names;
+        try {
+            names = ImageFlyweightFactory.loadSnapshot(file);
+        } catch (IOException e) {
+            System.out.println("[MediaFacade] Snapshot not used, starting cold: " + e.getMessage());
+            return CompletableFuture.completedFuture(null);
+        }
+        System.out.println("[MediaFacade] Loaded snapshot with " + names.size() + " flyweights from " + file
+                + (prewarm ? " (prewarming)" : " (lazy)"));
+        if (!prewarm) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<?>[] loads = names.stream()
+                .map(name -> CompletableFuture.runAsync(() -> ImageFlyweightFactory.getImageData(name), executor))
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(loads);
+    }
+
     // Показать статистику 
     public void showStats() {
+        ImageProxy.flushAccessLog();
         System.out.println("\n[MediaFacade] Stats:");
         System.out.println(" - Flyweight pool size: " + ImageFlyweightFactory.getPoolSize());
         System.out.println(" - RealImage cache size: " + ImageProxy.cacheSize());
         System.out.println(" - Flyweights: " + ImageFlyweightFactory.getKeys());
+        System.out.println(" - Flyweight pool: " + ImageFlyweightFactory.getStats());
+        System.out.println(" - RealImage cache: " + ImageProxy.cacheStats());
+        System.out.println(" - Payload storage: " + ImageFlyweightFactory.getArenaStats());
+        System.out.println(" - Prefetch: " + ImageProxy.predictorStats());
+        System.out.println(" - Cached auth decisions: " + ImageProxy.cachedDecisions());
+        System.out.println(" - Dropped access-log events: " + ImageProxy.droppedLogEvents());
     }
 
     // Очистить кэш real images
@@ -185,8 +1417,11 @@ class MediaFacade {
 
 // ========== Демонстрация в main ==========
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws InterruptedException, IOException {
         MediaFacade facade = new MediaFacade();
+        // Демо читается сверху вниз: журнал доступа печатается в потоке показа,
+        // а не фоновым потоком после вывода, к которому он относится
+        ImageProxy.setSynchronousAccessLog(true);
 
         // Список изображений
         List<String> gallery = Arrays.asList(
@@ -209,12 +1444,20 @@ public class Main {
         // 2) Попытка доступа к приватному 
         System.out.println("\n=== Попытка доступа к приватному изображению обычным пользователем ===");
         facade.viewImage("private_secret_event.png", "bob");
+        ImageProxy.flushAccessLog();
 
         // 3) Доступ к приватному как admin 
         System.out.println("\n=== Доступ admin к приватному изображению ===");
         facade.viewImage("private_secret_event.png", "admin");
         facade.showStats();
 
+        // Смена политики сбрасывает общий кеш решений: теперь bob тоже допущен
+        System.out.println("\n=== Новая политика доступа: bob допущен к приватным ===");
+        ImageProxy.setAccessPolicy((user, image) -> ImageProxy.defaultPolicy(user, image) || "bob".equals(user));
+        facade.viewImage("private_secret_event.png", "bob");
+        ImageProxy.setAccessPolicy(ImageProxy::defaultPolicy);
+        ImageProxy.flushAccessLog();
+
         // 4) Демонстрация предварительной загрузки
         List<String> preloadList = Arrays.asList("img_new.png", "img_portrait.jpg", "img_landscape.jpg");
         facade.preloadImages(preloadList);
@@ -230,5 +1473,124 @@ public class Main {
         System.out.println("\n=== Вывод — Flyweight уменьшает количество тяжёлых объектов ===");
         System.out.println("Created flyweights: " + ImageFlyweightFactory.getPoolSize());
         System.out.println("RealImage cache entries: " + ImageProxy.cacheSize());
+
+        // 7) Ограниченный пул: старые flyweight-ы вытесняются по CLOCK (приближение LRU)
+        System.out.println("\n=== Ограниченный пул flyweight (макс. 2 изображения) ===");
+        ImageFlyweightFactory.setPool(new BoundedCache<>(2));
+        facade.preloadImages(Arrays.asList("img_a.png", "img_b.png", "img_a.png", "img_c.png"));
+        facade.showStats();
+
+        // 8) Асинхронная галерея: дубликаты убраны, загрузка параллельная, порядок сохранён
+        System.out.println("\n=== Асинхронная галерея ===");
+        facade.preloadImagesAsync(Arrays.asList("img_a.png", "img_d.png", "img_d.png")).join();
+        facade.viewGalleryAsync(gallery, "dave").join();
+        facade.showStats();
+
+        // 9) Off-heap payload-ы: байты изображений в memory-mapped файле, а не в куче
+        System.out.println("\n=== Off-heap хранение payload-ов ===");
+        ImageFlyweightFactory.setArena(ImageArena.mapped(Path.of(System.getProperty("java.io.tmpdir")), 1 << 20));
+        facade.viewGallery(Arrays.asList("img_offheap_1.png", "img_offheap_2.png"), "erin");
+        facade.showStats();
+        ImageFlyweightFactory.setArena(null);
+
+        // 10) Снимок пула: после перезапуска ImageData берутся из снимка
+        System.out.println("\n=== Warm start из снимка пула ===");
+        snapshotDemo(facade, gallery);
+
+        // 11) Prefetch: пользователь листает галерею в предсказуемом порядке
+        System.out.println("\n=== Prefetch следующего изображения ===");
+        facade.enablePrefetch(1);
+        List<String> pages = Arrays.asList("img_page_1.png", "img_page_2.png", "img_page_3.png");
+        facade.viewGallery(pages, "grace");
+        ImageFlyweightFactory.setPool(new BoundedCache<>(10_000));
+        ImageProxy.clearCache();
+        facade.viewImage(pages.get(0), "heidi");
+        ImageProxy.awaitPredictor(); // prefetch решается в фоне
+        facade.viewImage(pages.get(1), "heidi");
+        ImageProxy.awaitPredictor(); // иначе подгрузка img_page_3 попадёт в стресс-тест
+        facade.showStats();
+        facade.disablePrefetch();
+
+        // 12) Конкурентная нагрузка: single-flight без дубликатов и масштабирование по потокам
+        System.out.println("\n=== Конкурентная загрузка flyweight-ов ===");
+        ImageFlyweightFactory.setPool(new BoundedCache<>(10_000));
+        stressTest();
+        ImageProxy.flushAccessLog();
+    }
+
+    // Время до первого показа с холодного старта и из снимка меряет SnapshotBenchmark (JMH)
+    private static void snapshotDemo(MediaFacade facade, List<String> gallery) throws IOException {
+        Path file = Files.createTempFile("image-pool-", ".snap");
+        file.toFile().deleteOnExit();
+        ImageFlyweightFactory.setPool(new BoundedCache<>(10_000));
+        facade.preloadImages(gallery);
+        facade.saveSnapshot(file);
+
+        // "Перезапуск" — пустой пул и кэш: ImageData поднимаются из снимка, а не создаются заново
+        ImageFlyweightFactory.setPool(new BoundedCache<>(10_000));
+        ImageProxy.clearCache();
+        facade.loadSnapshot(file, false);
+        facade.viewImage(gallery.get(0), "frank");
+        ImageProxy.flushAccessLog();
+
+        // Испорченная длина первой записи: холодный старт вместо падения
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ch.write(ByteBuffer.allocate(4).putInt(0, -1), 8);
+        }
+        facade.loadSnapshot(file, false);
+    }
+
+    private static void stressTest() throws InterruptedException {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            names.add("img_stress_" + i + ".jpg");
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        // Холодный старт: все потоки одновременно просят одни и те же отсутствующие ключи
+        int before = ImageData.createdCount();
+        runConcurrently(cores, names, 1_000);
+        int created = ImageData.createdCount() - before;
+        System.out.println("Threads: " + cores + ", distinct images: " + names.size()
+                + ", ImageData created: " + created);
+        if (created != names.size()) {
+            throw new IllegalStateException("single-flight broken: " + created + " ImageData for "
+                    + names.size() + " names");
+        }
+
+        // Горячий кэш: чтения без блокировок должны масштабироваться с числом ядер
+        int opsPerThread = 2_000_000;
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            long start = System.nanoTime();
+            runConcurrently(threads, names, opsPerThread);
+            double ms = (System.nanoTime() - start) / 1_000_000.0;
+            System.out.printf(" - %d thread(s): %.0f lookups/ms%n", threads, threads * (double) opsPerThread / ms);
+        }
+    }
+
+    private static void runConcurrently(int threads, List<String> names, int opsPerThread)
+            throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            executor.execute(() -> {
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < opsPerThread; i++) {
+                    ImageFlyweightFactory.getImageData(names.get((i + offset) % names.size()));
+                }
+            });
+        }
+        go.countDown();
+        executor.shutdown();
+        if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+            executor.shutdownNow();
+            throw new IllegalStateException("stress test did not finish within a minute");
+        }
     }
 }
@@ -0,0 +1,89 @@
+package hw6;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+// Попадания и промахи ImageFlyweightFactory, в один поток и под конкуренцией.
+// Аллокации: java -jar benchmarks.jar Flyweight -prof gc (gc.alloc.rate.norm)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class FlyweightBenchmark {
+    private static final int NAMES = 1_000;
+
+    private final String[] names = new String[NAMES];
+    private long unique;
+
+    private PrintStream console;
+
+    // Свой курсор у каждого потока, чтобы потоки не делили счётчик
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int position;
+
+        @Setup
+        public void setUp() {
+            position = (int) (Thread.currentThread().getId() % NAMES);
+        }
+
+        // Индекс по кругу, без переполнения
+        int next() {
+            position = position + 1 == NAMES ? 0 : position + 1;
+            return position;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        // Промах печатает "[ImageData] created ...": иначе замерялся бы вывод в консоль
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        ImageFlyweightFactory.setPool(new BoundedCache<>(10_000));
+        for (int i = 0; i < NAMES; i++) {
+            names[i] = "img_bench_" + i + ".jpg";
+            ImageFlyweightFactory.getImageData(names[i]);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(console);
+    }
+
+    @Benchmark
+    public ImageData cacheHit(Cursor cursor) {
+        return ImageFlyweightFactory.getImageData(names[cursor.next()]);
+    }
+
+    // Каждый вызов — новое имя: загрузка, вставка и вытеснение из полного пула
+    @Benchmark
+    public ImageData cacheMiss() {
+        return ImageFlyweightFactory.getImageData("img_miss_" + unique++);
+    }
+
+    // Горячие чтения из всех ядер сразу: цена прохода мимо блокировки пула
+    @Benchmark
+    @Threads(Threads.MAX)
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public ImageData contendedHit(Cursor cursor) {
+        return ImageFlyweightFactory.getImageData(names[cursor.next()]);
+    }
+}
@@ -0,0 +1,88 @@
+package hw6;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// MediaFacade.viewGallery на холодных кэшах и показ на тёплых; результат —
+// время на одно изображение
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class GalleryBenchmark {
+    private static final int GALLERY_SIZE = 1_000;
+
+    // Доля повторов уже встреченных имён, в процентах
+    @Param({"0", "50", "90"})
+    public int duplicatePercent;
+
+    private final MediaFacade facade = new MediaFacade();
+    private List<String> gallery;
+    private PrintStream console;
+
+    @Setup
+    public void setUp() {
+        // Демонстрационный вывод паттернов и строки показа не должны попадать в замеры
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        gallery = gallery(GALLERY_SIZE, duplicatePercent);
+    }
+
+    @TearDown
+    public void tearDown() {
+        ImageProxy.flushAccessLog();
+        System.setOut(console);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(GALLERY_SIZE)
+    public void viewGallery() {
+        ImageFlyweightFactory.setPool(new BoundedCache<>(10_000));
+        ImageProxy.clearCache();
+        facade.viewGallery(gallery, "bench");
+    }
+
+    // Тёплые кэши: после первого вызова каждый показ — попадание. С -prof gc
+    // gc.alloc.rate.norm должен быть около 0 B/op
+    @Benchmark
+    @OperationsPerInvocation(GALLERY_SIZE)
+    public void viewWarm() {
+        for (int i = 0; i < GALLERY_SIZE; i++) {
+            facade.viewImage(gallery.get(i), "bench");
+        }
+    }
+
+    private static List<String> gallery(int size, int duplicatePercent) {
+        Random rnd = new Random(42);
+        List<String> gallery = new ArrayList<>(size);
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (distinct > 0 && rnd.nextInt(100) < duplicatePercent) {
+                gallery.add(gallery.get(rnd.nextInt(gallery.size())));
+            } else {
+                gallery.add("img_gallery_" + distinct++ + ".jpg");
+            }
+        }
+        return gallery;
+    }
+}
@@ -0,0 +1,82 @@
+package hw6;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Время до первого показа после "перезапуска": пустые пул и кэш RealImage,
+// затем каждое изображение галереи показывается впервые. В режиме snapshot
+// в замер входит и отображение снимка в память. Один вызов — один перезапуск,
+// поэтому SingleShotTime с множеством итераций; результат — на одно изображение.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 20)
+@Measurement(iterations = 50)
+@Fork(2)
+public class SnapshotBenchmark {
+    private static final int GALLERY_SIZE = 1_000;
+
+    @Param({"cold", "snapshot"})
+    public String start;
+
+    private final MediaFacade facade = new MediaFacade();
+    private final List<String> gallery = new ArrayList<>(GALLERY_SIZE);
+    private Path file;
+    private PrintStream console;
+
+    @Setup
+    public void setUp() throws IOException {
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        for (int i = 0; i < GALLERY_SIZE; i++) {
+            gallery.add("img_snapshot_" + i + ".jpg");
+        }
+        file = Files.createTempFile("image-pool-", ".snap");
+        ImageFlyweightFactory.setPool(new BoundedCache<>(10_000));
+        facade.preloadImages(gallery);
+        facade.saveSnapshot(file);
+    }
+
+    @Setup(Level.Invocation)
+    public void restart() {
+        ImageFlyweightFactory.setPool(new BoundedCache<>(10_000));
+        ImageProxy.clearCache();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        ImageProxy.flushAccessLog();
+        System.setOut(console);
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(GALLERY_SIZE)
+    public void firstDisplay() {
+        if (start.equals("snapshot")) {
+            facade.loadSnapshot(file, false);
+        }
+        facade.viewGallery(gallery, "bench");
+    }
+}
@@ -1,4 +1,14 @@
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 
 class Request {
@@ -19,40 +29,97 @@ abstract class Handler {
         return next;
     }
 
-    public abstract void handle(Request request);
-}
+    // Request type this handler approves
+    public abstract String type();
 
-class AdvisorHandler extends Handler {
-    public void handle(Request request) {
-        if (request.type.equals("course_change")) {
-            System.out.println("Advisor: Одобрил смену курса для " + request.student);
+    protected abstract void approve(Request request);
+
+    // Called on the last handler when nobody in the chain took the request
+    protected void reject(Request request) {
+    }
+
+    // Final: HandlerChain dispatches straight to approve()/reject() and relies
+    // on this being the only routing logic. Customise those two instead.
+    public final void handle(Request request) {
+        if (request.type.equals(type())) {
+            approve(request);
+        } else if (next != null) {
+            next.handle(request);
         } else {
-            if (next != null) next.handle(request);
+            reject(request);
         }
     }
 }
 
+class AdvisorHandler extends Handler {
+    public String type() {
+        return "course_change";
+    }
+
+    protected void approve(Request request) {
+        System.out.println("Advisor: Одобрил смену курса для " + request.student);
+    }
+}
+
 class DeanHandler extends Handler {
-    public void handle(Request request) {
-        if (request.type.equals("academic_break")) {
-            System.out.println("Dean: Одобрил академ отпуск для " + request.student);
-        } else {
-            if (next != null) next.handle(request);
-        }
+    public String type() {
+        return "academic_break";
+    }
+
+    protected void approve(Request request) {
+        System.out.println("Dean: Одобрил академ отпуск для " + request.student);
     }
 }
 
 class RectorHandler extends Handler {
+    public String type() {
+        return "expulsion_cancel";
+    }
+
+    protected void approve(Request request) {
+        System.out.println("Rector: Отменил отчисление студента " + request.student);
+    }
+
+    protected void reject(Request request) {
+        System.out.println("Заявка отклонена");
+    }
+}
+
+// Dispatch table built once from an assembled chain: type -> first handler
+// for that type, so a request costs one hash lookup instead of a walk with a
+// String.equals per handler. Gives the same result as head.handle(): earlier
+// handlers win, and unknown types go to the tail's reject(). That holds
+// because Handler.handle() is final.
+// Rebuild it if the chain is changed with setNext().
+class HandlerChain {
+    private final Map<String, Handler> byType = new HashMap<>();
+    private final Handler tail;
+
+    private HandlerChain(Handler head) {
+        Handler h = head;
+        Handler last = head;
+        while (h != null) {
+            byType.putIfAbsent(h.type(), h);
+            last = h;
+            h = h.next;
+        }
+        this.tail = last;
+    }
+
+    public static HandlerChain of(Handler head) {
+        return new HandlerChain(head);
+    }
+
     public void handle(Request request) {
-        if (request.type.equals("expulsion_cancel")) {
-            System.out.println("Rector: Отменил отчисление студента " + request.student);
+        Handler h = byType.get(request.type);
+        if (h != null) {
+            h.approve(request);
         } else {
-            System.out.println("Заявка отклонена");
+            tail.reject(request);
         }
     }
 }
 
-
 interface Command {
     void execute();
 }
@@ -81,39 +148,191 @@ class IssueStudentCardCommand implements Command {
     }
 }
 
-class Invoker {
-    private Queue<Command> queue = new LinkedList<>();
+// Runs commands on a pool of worker threads. Any number of threads may
+// submit; commands go through a lock-free queue and each gets its own
+// completion future. With one worker (the default) commands run strictly in
+// submission order.
+class Invoker implements AutoCloseable {
+    private static class Task {
+        final Command command;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Task(Command command) {
+            this.command = command;
+        }
+    }
+
+    private final Queue<Task> queue = new ConcurrentLinkedQueue<>();
+    private final Semaphore ready = new Semaphore(0); // one permit per queued task, plus one per worker on shutdown
+    private final AtomicInteger submitting = new AtomicInteger();
+    private final AtomicLong unfinished = new AtomicLong();
+    private final Object idle = new Object();
+    private final AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean shutdown;
+
+    public Invoker() {
+        this(1, platformThreads());
+    }
+
+    public Invoker(int workers, ThreadFactory threads) {
+        if (workers < 1) throw new IllegalArgumentException("workers must be positive");
+        for (int i = 0; i < workers; i++) {
+            Thread t = threads.newThread(this::work);
+            this.workers.add(t);
+            t.start();
+        }
+    }
+
+    // Daemon threads: an Invoker that is never closed does not keep the JVM alive
+    public static ThreadFactory platformThreads() {
+        AtomicInteger n = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, "invoker-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    // Virtual threads where the runtime has them (Java 21+), platform threads otherwise
+    public static ThreadFactory virtualThreads() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            return platformThreads();
+        }
+    }
+
+    public CompletableFuture<Void> submit(Command command) {
+        submitting.incrementAndGet();
+        try {
+            if (shutdown) throw new RejectedExecutionException("Invoker is shut down");
+            Task task = new Task(command);
+            unfinished.incrementAndGet();
+            queue.offer(task);
+            ready.release();
+            return task.done;
+        } finally {
+            submitting.decrementAndGet();
+        }
+    }
 
     public void add(Command command) {
-        queue.add(command);
+        submit(command);
     }
 
+    // Waits until every command submitted so far has finished, then rethrows
+    // the first failure since the previous run(), as if run on this thread
     public void run() {
-        while (!queue.isEmpty()) {
-            queue.poll().execute();
+        synchronized (idle) {
+            while (unfinished.get() > 0) {
+                try {
+                    idle.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
         }
+        Throwable failure = firstFailure.getAndSet(null);
+        if (failure instanceof RuntimeException) throw (RuntimeException) failure;
+        if (failure instanceof Error) throw (Error) failure;
+        if (failure != null) throw new CompletionException(failure);
     }
-}
 
+    // Stops accepting commands; workers finish everything already queued, then exit
+    public void shutdown() {
+        if (shutdown) return;
+        shutdown = true;
+        while (submitting.get() > 0) Thread.onSpinWait(); // let in-flight submits land in the queue
+        ready.release(workers.size());
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Thread t : workers) {
+            long left = deadline - System.nanoTime();
+            if (left <= 0) return false;
+            t.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(left)));
+            if (t.isAlive()) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        shutdown();
+        for (Thread t : workers) {
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void work() {
+        while (true) {
+            ready.acquireUninterruptibly();
+            Task task = queue.poll();
+            if (task == null) return; // a shutdown permit: the queue is drained
+            try {
+                task.command.execute();
+                task.done.complete(null);
+            } catch (Throwable e) {
+                firstFailure.compareAndSet(null, e);
+                task.done.completeExceptionally(e);
+            }
+            if (unfinished.decrementAndGet() == 0) {
+                synchronized (idle) {
+                    idle.notifyAll();
+                }
+            }
+        }
+    }
+}
 
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws InterruptedException {
         Handler advisor = new AdvisorHandler();
         Handler dean = new DeanHandler();
         Handler rector = new RectorHandler();
 
         advisor.setNext(dean).setNext(rector);
+        HandlerChain chain = HandlerChain.of(advisor);
+
+        chain.handle(new Request("course_change", "Arman"));
+        chain.handle(new Request("academic_break", "Sabina"));
+        chain.handle(new Request("expulsion_cancel", "Arkhat"));
+        chain.handle(new Request("unknown", "Random Student"));
 
-        advisor.handle(new Request("course_change", "Arman"));
-        advisor.handle(new Request("academic_break", "Sabina"));
-        advisor.handle(new Request("expulsion_cancel", "Arkhat"));
-        advisor.handle(new Request("unknown", "Random Student"));
+        System.out.println();
+
+        try (Invoker invoker = new Invoker()) {
+            invoker.add(new ApproveDormCommand("Arman"));
+            invoker.add(new IssueStudentCardCommand("Sabina"));
+            invoker.run();
+        }
 
         System.out.println();
 
-        Invoker invoker = new Invoker();
-        invoker.add(new ApproveDormCommand("Arman"));
-        invoker.add(new IssueStudentCardCommand("Sabina"));
-        invoker.run();
+        // Several workers, commands submitted from several threads, per-command futures
+        try (Invoker pool = new Invoker(4, Invoker.platformThreads())) {
+            List<CompletableFuture<Void>> done = Collections.synchronizedList(new ArrayList<>());
+            List<Thread> offices = new ArrayList<>();
+            for (String student : new String[]{"Arkhat", "Dana", "Timur"}) {
+                Thread t = new Thread(() -> {
+                    done.add(pool.submit(new ApproveDormCommand(student)));
+                    done.add(pool.submit(new IssueStudentCardCommand(student)));
+                });
+                offices.add(t);
+                t.start();
+            }
+            for (Thread t : offices) t.join();
+            CompletableFuture.allOf(done.toArray(new CompletableFuture<?>[0])).join();
+            System.out.println("Выполнено команд: " + done.size());
+        }
     }
 }
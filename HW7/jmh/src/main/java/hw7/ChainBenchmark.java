@@ -0,0 +1,87 @@
+package hw7;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Chain walk vs indexed dispatch; the score is time per request
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ChainBenchmark {
+    private static final int BATCH = 4096;
+
+    static class CountingHandler extends Handler {
+        private final String type;
+        long approved;
+        long rejected;
+
+        CountingHandler(String type) {
+            this.type = type;
+        }
+
+        public String type() {
+            return type;
+        }
+
+        protected void approve(Request request) {
+            approved++;
+        }
+
+        protected void reject(Request request) {
+            rejected++;
+        }
+    }
+
+    @Param({"3", "32", "128"})
+    public int length;
+
+    private Handler head;
+    private HandlerChain chain;
+    private final Request[] requests = new Request[BATCH];
+
+    @Setup
+    public void setUp() {
+        head = new CountingHandler("type_0");
+        Handler h = head;
+        for (int i = 1; i < length; i++) {
+            h = h.setNext(new CountingHandler("type_" + i));
+        }
+        chain = HandlerChain.of(head);
+
+        // Uniform over all types plus ~10% unknown ones; types come from
+        // a different source than the handlers' strings, like real input
+        Random random = new Random(42);
+        for (int i = 0; i < requests.length; i++) {
+            int t = random.nextInt(length + length / 10 + 1);
+            requests[i] = new Request(new String("type_" + t), "student" + i);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void walk() {
+        for (Request r : requests) head.handle(r);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void indexed() {
+        for (Request r : requests) chain.handle(r);
+    }
+}
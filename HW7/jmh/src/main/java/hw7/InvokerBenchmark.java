@@ -0,0 +1,127 @@
+package hw7;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Many producers submitting dorm/card commands to the Invoker versus a fixed
+// ThreadPoolExecutor. One invocation submits the whole batch and drains it,
+// so the score is end-to-end commands per second.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class InvokerBenchmark {
+    private static final int PRODUCERS = 8;
+    private static final int PER_PRODUCER = 10_000;
+
+    @Param({"invoker", "executor"})
+    public String target;
+
+    @Param({"1", "2", "4"})
+    public int workers;
+
+    static final LongAdder sink = new LongAdder();
+
+    static class SilentDormCommand implements Command {
+        private final String student;
+
+        SilentDormCommand(String student) {
+            this.student = student;
+        }
+
+        public void execute() {
+            sink.add(("Dorm: Заселён студент " + student).length());
+        }
+    }
+
+    static class SilentCardCommand implements Command {
+        private final String student;
+
+        SilentCardCommand(String student) {
+            this.student = student;
+        }
+
+        public void execute() {
+            sink.add(("Card Office: Студентский выдан " + student).length());
+        }
+    }
+
+    private ExecutorService producers;
+    private Invoker invoker;
+    private ExecutorService executor;
+
+    @Setup
+    public void setUp() {
+        producers = Executors.newFixedThreadPool(PRODUCERS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        producers.shutdownNow();
+    }
+
+    // Pool start-up stays out of the measurement; an invocation is tens of ms
+    @Setup(Level.Invocation)
+    public void open() {
+        if (target.equals("invoker")) {
+            invoker = new Invoker(workers, Invoker.platformThreads());
+        } else {
+            executor = Executors.newFixedThreadPool(workers);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PRODUCERS * PER_PRODUCER)
+    public void submitAndDrain() throws InterruptedException, ExecutionException {
+        List<Future<?>> running = new ArrayList<>(PRODUCERS);
+        for (int p = 0; p < PRODUCERS; p++) {
+            String student = "student" + p;
+            running.add(producers.submit(() -> {
+                for (int i = 0; i < PER_PRODUCER; i++) {
+                    Command command = i % 2 == 0 ? new SilentDormCommand(student) : new SilentCardCommand(student);
+                    if (invoker != null) {
+                        invoker.submit(command);
+                    } else {
+                        CompletableFuture.runAsync(command::execute, executor);
+                    }
+                }
+            }));
+        }
+        for (Future<?> f : running) {
+            f.get();
+        }
+        // Both drain what was submitted before stopping
+        if (invoker != null) {
+            invoker.close();
+            invoker = null;
+        } else {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+            executor = null;
+        }
+    }
+}